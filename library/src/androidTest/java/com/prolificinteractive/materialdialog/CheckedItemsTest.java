@@ -0,0 +1,109 @@
+package com.prolificinteractive.materialdialog;
+
+import junit.framework.TestCase;
+
+public class CheckedItemsTest extends TestCase {
+
+  public void testEmpty() {
+    final CheckedItems set = new CheckedItems();
+    assertEquals(0, set.size());
+    assertFalse(set.isChecked(0));
+    assertFalse(set.isChecked(1000));
+    assertEquals(-1, set.nextChecked(0));
+  }
+
+  public void testSetChecked() {
+    final CheckedItems set = new CheckedItems();
+    set.setChecked(3, true);
+    set.setChecked(64, true);
+    set.setChecked(200, true);
+    assertTrue(set.isChecked(3));
+    assertTrue(set.isChecked(64));
+    assertTrue(set.isChecked(200));
+    assertFalse(set.isChecked(63));
+    assertFalse(set.isChecked(65));
+    assertEquals(3, set.size());
+
+    set.setChecked(64, false);
+    assertFalse(set.isChecked(64));
+    assertEquals(2, set.size());
+
+    // Unchecking past the end doesn't grow the set
+    set.setChecked(10000, false);
+    assertEquals(4, set.toWords().length);
+  }
+
+  public void testNegativePositionThrows() {
+    try {
+      new CheckedItems().setChecked(-1, true);
+      fail();
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+
+  public void testFromBooleans() {
+    final CheckedItems set = new CheckedItems(new boolean[] { true, false, false, true });
+    assertTrue(set.isChecked(0));
+    assertFalse(set.isChecked(1));
+    assertTrue(set.isChecked(3));
+    assertEquals(2, set.size());
+    assertEquals(0, new CheckedItems(null).size());
+  }
+
+  public void testToggle() {
+    final CheckedItems set = new CheckedItems();
+    assertTrue(set.toggle(70));
+    assertTrue(set.isChecked(70));
+    assertFalse(set.toggle(70));
+    assertFalse(set.isChecked(70));
+  }
+
+  public void testCheckAll() {
+    final CheckedItems set = new CheckedItems();
+    set.checkAll(130);
+    assertEquals(130, set.size());
+    assertTrue(set.isChecked(0));
+    assertTrue(set.isChecked(129));
+    assertFalse(set.isChecked(130));
+
+    set.clear();
+    assertEquals(0, set.size());
+    set.checkAll(64);
+    assertEquals(64, set.size());
+    assertFalse(set.isChecked(64));
+  }
+
+  public void testNextChecked() {
+    final CheckedItems set = new CheckedItems();
+    set.setChecked(5, true);
+    set.setChecked(63, true);
+    set.setChecked(300, true);
+    assertEquals(5, set.nextChecked(-4));
+    assertEquals(5, set.nextChecked(5));
+    assertEquals(63, set.nextChecked(6));
+    assertEquals(300, set.nextChecked(64));
+    assertEquals(-1, set.nextChecked(301));
+    assertEquals(-1, set.nextChecked(100000));
+  }
+
+  public void testWordsRoundTrip() {
+    final CheckedItems set = new CheckedItems();
+    set.setChecked(1, true);
+    set.setChecked(500, true);
+    set.setChecked(500, false);
+    final long[] words = set.toWords();
+    assertEquals(1, words.length);
+
+    final CheckedItems copy = new CheckedItems();
+    copy.setWords(words);
+    assertTrue(copy.isChecked(1));
+    assertEquals(1, copy.size());
+
+    // The copy doesn't share the array
+    words[0] = 0;
+    assertTrue(copy.isChecked(1));
+
+    copy.setWords(null);
+    assertEquals(0, copy.size());
+  }
+}
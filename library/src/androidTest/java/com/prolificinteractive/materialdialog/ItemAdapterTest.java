@@ -0,0 +1,180 @@
+package com.prolificinteractive.materialdialog;
+
+import android.test.InstrumentationTestCase;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.AbsListView;
+import android.widget.ListView;
+import java.util.concurrent.Executor;
+
+public class ItemAdapterTest extends InstrumentationTestCase {
+
+  private static final Executor DIRECT = new Executor() {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private ListView listView;
+  private ItemAdapter adapter;
+
+  private void setUpList(final int choiceMode, final int layoutId) {
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        final CharSequence[] items = new CharSequence[1000];
+        for (int i = 0; i < items.length; i++) {
+          items[i] = "Item " + i;
+        }
+        listView = new ListView(new ContextThemeWrapper(
+            getInstrumentation().getTargetContext(), R.style.Theme_MaterialDialog));
+        adapter = new ItemAdapter(items, layoutId);
+        listView.setAdapter(adapter);
+        listView.setChoiceMode(choiceMode);
+        layout();
+      }
+    });
+  }
+
+  public void testFilterWithItemCheckedPastNewCount() {
+    setUpList(AbsListView.CHOICE_MODE_MULTIPLE, R.layout.mdb__list_item_multi_choice);
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        listView.setItemChecked(505, true);
+        listView.setItemChecked(700, true);
+      }
+    });
+
+    // Matches 50 and 500 to 509
+    filter("item 50");
+    assertEquals(11, listView.getCount());
+    assertTrue(listView.isItemChecked(6));
+    assertCheckedCount(1);
+
+    filter(null);
+    assertEquals(1000, listView.getCount());
+    assertTrue(listView.isItemChecked(505));
+    assertTrue(listView.isItemChecked(700));
+    assertCheckedCount(2);
+  }
+
+  public void testHiddenItemsKeepTheirState() {
+    setUpList(AbsListView.CHOICE_MODE_MULTIPLE, R.layout.mdb__list_item_multi_choice);
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        listView.setItemChecked(700, true);
+      }
+    });
+
+    filter("item 50");
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        // Item 501
+        listView.setItemChecked(2, true);
+      }
+    });
+    filter("item 5");
+    assertTrue(listView.isItemChecked(adapterPositionOf(501)));
+    assertCheckedCount(1);
+
+    filter(null);
+    assertTrue(listView.isItemChecked(501));
+    assertTrue(listView.isItemChecked(700));
+    assertCheckedCount(2);
+  }
+
+  public void testSetAllChoicesIncludesHiddenItems() {
+    setUpList(AbsListView.CHOICE_MODE_MULTIPLE, R.layout.mdb__list_item_multi_choice);
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        listView.setItemChecked(700, true);
+      }
+    });
+
+    filter("item 50");
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        adapter.setAllChoices(false, listView);
+      }
+    });
+    filter(null);
+    assertCheckedCount(0);
+
+    filter("item 50");
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        adapter.setAllChoices(true, listView);
+      }
+    });
+    assertCheckedCount(11);
+    filter(null);
+    assertCheckedCount(1000);
+  }
+
+  public void testSingleChoiceReplacesHiddenItem() {
+    setUpList(AbsListView.CHOICE_MODE_SINGLE, R.layout.mdb__list_item_single_choice);
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        listView.setItemChecked(900, true);
+      }
+    });
+
+    filter("item 50");
+    assertEquals(AbsListView.INVALID_POSITION, listView.getCheckedItemPosition());
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        // Item 500
+        listView.setItemChecked(1, true);
+      }
+    });
+
+    filter(null);
+    assertEquals(500, listView.getCheckedItemPosition());
+  }
+
+  private void filter(final String constraint) {
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        adapter.filter(constraint, null, DIRECT, listView);
+      }
+    });
+    // The result is delivered through the main thread, then the list is laid out with it
+    getInstrumentation().waitForIdleSync();
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        layout();
+      }
+    });
+  }
+
+  private int adapterPositionOf(int index) {
+    for (int position = 0; position < adapter.getCount(); position++) {
+      if (adapter.indexOf(position) == index) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  private void assertCheckedCount(int expected) {
+    int count = 0;
+    for (int position = 0; position < listView.getCount(); position++) {
+      if (listView.isItemChecked(position)) {
+        count++;
+      }
+    }
+    assertEquals(expected, count);
+  }
+
+  /**
+   * Going through layout is where the list used to check moved items against stale positions
+   */
+  private void layout() {
+    listView.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(800, View.MeasureSpec.EXACTLY));
+    listView.layout(0, 0, 480, 800);
+  }
+
+  private void runOnMain(Runnable runnable) {
+    getInstrumentation().runOnMainSync(runnable);
+  }
+}
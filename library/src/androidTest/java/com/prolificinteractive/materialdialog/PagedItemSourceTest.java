@@ -0,0 +1,178 @@
+package com.prolificinteractive.materialdialog;
+
+import android.test.InstrumentationTestCase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class PagedItemSourceTest extends InstrumentationTestCase {
+
+  private static final int PAGE_SIZE = 10;
+
+  private QueueExecutor executor;
+  private TestSource source;
+  private List<Integer> loadedOffsets;
+
+  @Override protected void setUp() throws Exception {
+    super.setUp();
+    executor = new QueueExecutor();
+    source = new TestSource(executor);
+    loadedOffsets = new ArrayList<Integer>();
+    source.setOnPageLoadedListener(new PagedItemSource.OnPageLoadedListener() {
+      @Override public void onPageLoaded(int offset, int size) {
+        loadedOffsets.add(offset);
+      }
+    });
+  }
+
+  public void testPageLoadsOnFirstAccess() {
+    assertNull(get(15));
+    assertEquals(1, executor.pending());
+
+    executor.runAll();
+    assertEquals("v0-15", get(15));
+    assertEquals(1, loadedOffsets.size());
+    assertEquals(10, (int) loadedOffsets.get(0));
+  }
+
+  public void testPageIsRequestedOnce() {
+    get(0);
+    get(1);
+    get(2);
+    assertEquals(1, executor.pending());
+  }
+
+  public void testLastPageIsShort() {
+    get(90);
+    executor.runAll();
+    assertEquals(5, source.lastSize);
+    assertEquals("v0-94", get(94));
+  }
+
+  public void testInvalidateDropsPagesLoadingBeforeIt() {
+    get(0);
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        source.invalidate();
+      }
+    });
+    source.version = 1;
+
+    // Loaded with the old data, delivered after invalidate()
+    executor.runAll();
+    assertTrue(loadedOffsets.isEmpty());
+
+    assertNull(get(0));
+    assertEquals(1, executor.pending());
+    executor.runAll();
+    assertEquals("v1-0", get(0));
+  }
+
+  public void testInvalidateDropsLoadedPages() {
+    get(0);
+    executor.runAll();
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        source.invalidate();
+      }
+    });
+    source.version = 1;
+
+    assertNull(get(0));
+    executor.runAll();
+    assertEquals("v1-0", get(0));
+  }
+
+  public void testFailedLoadCanBeRetried() {
+    source.failing = true;
+    get(0);
+    // Logged, not thrown on the loading thread
+    executor.runAll();
+    assertTrue(loadedOffsets.isEmpty());
+
+    source.failing = false;
+    assertNull(get(0));
+    assertEquals(1, executor.pending());
+    executor.runAll();
+    assertEquals("v0-0", get(0));
+  }
+
+  public void testAdapterAndUserListenersAreBothNotified() {
+    final int[] adapterCalls = new int[1];
+    source.setAdapterListener(new PagedItemSource.OnPageLoadedListener() {
+      @Override public void onPageLoaded(int offset, int size) {
+        adapterCalls[0]++;
+      }
+    });
+    get(0);
+    executor.runAll();
+    assertEquals(1, adapterCalls[0]);
+    assertEquals(1, loadedOffsets.size());
+  }
+
+  /**
+   * The source is only used on the main thread
+   */
+  private CharSequence get(final int position) {
+    final CharSequence[] result = new CharSequence[1];
+    runOnMain(new Runnable() {
+      @Override public void run() {
+        result[0] = source.get(position);
+      }
+    });
+    return result[0];
+  }
+
+  private void runOnMain(Runnable runnable) {
+    getInstrumentation().runOnMainSync(runnable);
+  }
+
+  /**
+   * Runs loads on the test thread when asked, then lets their delivery reach the main thread
+   */
+  private final class QueueExecutor implements Executor {
+    private final List<Runnable> queue = new ArrayList<Runnable>();
+
+    @Override public synchronized void execute(Runnable command) {
+      queue.add(command);
+    }
+
+    synchronized int pending() {
+      return queue.size();
+    }
+
+    void runAll() {
+      final List<Runnable> commands;
+      synchronized (this) {
+        commands = new ArrayList<Runnable>(queue);
+        queue.clear();
+      }
+      for (Runnable command : commands) {
+        command.run();
+      }
+      getInstrumentation().waitForIdleSync();
+    }
+  }
+
+  private static final class TestSource extends PagedItemSource {
+    volatile int version = 0;
+    volatile boolean failing = false;
+    volatile int lastSize;
+
+    TestSource(Executor executor) {
+      super(95, PAGE_SIZE, DEFAULT_MAX_PAGES, executor);
+    }
+
+    @Override protected CharSequence[] loadPage(int offset, int size) {
+      if (failing) {
+        throw new IllegalStateException("load failed");
+      }
+      lastSize = size;
+      final CharSequence[] items = new CharSequence[size];
+      for (int i = 0; i < size; i++) {
+        items[i] = "v" + version + "-" + (offset + i);
+      }
+      return items;
+    }
+  }
+}
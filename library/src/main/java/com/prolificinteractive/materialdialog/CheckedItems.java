@@ -0,0 +1,164 @@
+package com.prolificinteractive.materialdialog;
+
+import java.util.Arrays;
+
+/**
+ * Compact set of the checked positions of a multi choice list, stored as a bitset.
+ * <p/>
+ * Applying it to a list, reading it and clearing it cost time proportional to the number of
+ * checked items, or to the number of items divided by 64, instead of the number of items.
+ *
+ * @see com.prolificinteractive.materialdialog.MaterialDialog.Builder#setCheckedItems(CheckedItems)
+ */
+public final class CheckedItems {
+
+  private static final long[] EMPTY = new long[0];
+
+  private long[] words = EMPTY;
+
+  /**
+   * Create an empty set
+   */
+  public CheckedItems() {
+  }
+
+  /**
+   * Create a set from an array of checked states
+   *
+   * @param checked the checked state of each position, may be null
+   */
+  public CheckedItems(boolean[] checked) {
+    if (checked != null) {
+      for (int i = checked.length - 1; i >= 0; i--) {
+        if (checked[i]) {
+          setChecked(i, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param position position of the item
+   * @return if the item is checked
+   */
+  public boolean isChecked(int position) {
+    final int word = position >> 6;
+    return word < words.length && (words[word] & (1L << position)) != 0;
+  }
+
+  /**
+   * @param position position of the item
+   * @param checked the new checked state
+   */
+  public void setChecked(int position, boolean checked) {
+    if (position < 0) {
+      throw new IndexOutOfBoundsException("position < 0: " + position);
+    }
+    final int word = position >> 6;
+    if (checked) {
+      ensureCapacity(word + 1);
+      words[word] |= 1L << position;
+    } else if (word < words.length) {
+      words[word] &= ~(1L << position);
+    }
+  }
+
+  /**
+   * Flip the checked state of an item
+   *
+   * @param position position of the item
+   * @return the new checked state
+   */
+  public boolean toggle(int position) {
+    final boolean checked = !isChecked(position);
+    setChecked(position, checked);
+    return checked;
+  }
+
+  /**
+   * Check every position from 0 to {@code count - 1}
+   *
+   * @param count the number of items in the list
+   */
+  public void checkAll(int count) {
+    if (count <= 0) {
+      return;
+    }
+    final int fullWords = count >> 6;
+    ensureCapacity(fullWords + 1);
+    Arrays.fill(words, 0, fullWords, -1L);
+    final int remainder = count & 63;
+    if (remainder != 0) {
+      words[fullWords] |= (1L << remainder) - 1;
+    }
+  }
+
+  /**
+   * Uncheck every position
+   */
+  public void clear() {
+    Arrays.fill(words, 0L);
+  }
+
+  /**
+   * @return the number of checked items
+   */
+  public int size() {
+    int size = 0;
+    for (long word : words) {
+      size += Long.bitCount(word);
+    }
+    return size;
+  }
+
+  /**
+   * Iterate over checked positions:
+   * {@code for (int i = set.nextChecked(0); i >= 0; i = set.nextChecked(i + 1))}
+   *
+   * @param from position to start looking at
+   * @return the first checked position at or after {@code from}, or -1 if there is none
+   */
+  public int nextChecked(int from) {
+    if (from < 0) {
+      from = 0;
+    }
+    int word = from >> 6;
+    if (word >= words.length) {
+      return -1;
+    }
+    long bits = words[word] & (-1L << from);
+    while (true) {
+      if (bits != 0) {
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+      }
+      if (++word == words.length) {
+        return -1;
+      }
+      bits = words[word];
+    }
+  }
+
+  /**
+   * @return the set as 64 positions per long, without trailing empty words
+   */
+  long[] toWords() {
+    int length = words.length;
+    while (length > 0 && words[length - 1] == 0) {
+      length--;
+    }
+    return Arrays.copyOf(words, length);
+  }
+
+  /**
+   * Replace the content of this set with words returned by {@link #toWords()}
+   */
+  void setWords(long[] words) {
+    this.words = words != null ? words.clone() : EMPTY;
+  }
+
+  private void ensureCapacity(int wordCount) {
+    if (words.length < wordCount) {
+      words = Arrays.copyOf(words, Math.max(wordCount, words.length * 2));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.prolificinteractive.materialdialog;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Checkable;
+import android.widget.ListAdapter;
+import android.widget.WrapperListAdapter;
+
+/**
+ * Wraps an adapter and checks its rows from a {@link CheckedItems},
+ * instead of relying on the ListView's choice mode
+ */
+class CheckedItemsAdapter implements WrapperListAdapter {
+
+  private final ListAdapter adapter;
+  private final CheckedItems checkedItems;
+
+  CheckedItemsAdapter(ListAdapter adapter, CheckedItems checkedItems) {
+    this.adapter = adapter;
+    this.checkedItems = checkedItems;
+  }
+
+  @Override public View getView(int position, View convertView, ViewGroup parent) {
+    View view = adapter.getView(position, convertView, parent);
+    if (view instanceof Checkable) {
+      // Checked items are tracked by index, which differs from the position when filtered
+      final int index = ItemAdapter.indexOf(adapter, position);
+      ((Checkable) view).setChecked(checkedItems.isChecked(index));
+    }
+    return view;
+  }
+
+  @Override public ListAdapter getWrappedAdapter() {
+    return adapter;
+  }
+
+  @Override public boolean areAllItemsEnabled() {
+    return adapter.areAllItemsEnabled();
+  }
+
+  @Override public boolean isEnabled(int position) {
+    return adapter.isEnabled(position);
+  }
+
+  @Override public void registerDataSetObserver(DataSetObserver observer) {
+    adapter.registerDataSetObserver(observer);
+  }
+
+  @Override public void unregisterDataSetObserver(DataSetObserver observer) {
+    adapter.unregisterDataSetObserver(observer);
+  }
+
+  @Override public int getCount() {
+    return adapter.getCount();
+  }
+
+  @Override public Object getItem(int position) {
+    return adapter.getItem(position);
+  }
+
+  @Override public long getItemId(int position) {
+    return adapter.getItemId(position);
+  }
+
+  @Override public boolean hasStableIds() {
+    return adapter.hasStableIds();
+  }
+
+  @Override public int getItemViewType(int position) {
+    return adapter.getItemViewType(position);
+  }
+
+  @Override public int getViewTypeCount() {
+    return adapter.getViewTypeCount();
+  }
+
+  @Override public boolean isEmpty() {
+    return adapter.isEmpty();
+  }
+}
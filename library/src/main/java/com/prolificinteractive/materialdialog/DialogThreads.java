@@ -0,0 +1,55 @@
+package com.prolificinteractive.materialdialog;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import java.util.concurrent.Executor;
+
+/**
+ * Threads shared by the library for work kept off the main thread
+ */
+final class DialogThreads {
+
+  private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+  private static Handler background;
+
+  private static final Executor BACKGROUND_EXECUTOR = new Executor() {
+    @Override public void execute(Runnable command) {
+      background().post(command);
+    }
+  };
+
+  private DialogThreads() {
+  }
+
+  /**
+   * @return a Handler on the main thread
+   */
+  static Handler main() {
+    return MAIN;
+  }
+
+  /**
+   * The background thread has a Looper, so views that create a Handler can be inflated on it
+   *
+   * @return a Handler on the library's background thread
+   */
+  static synchronized Handler background() {
+    if (background == null) {
+      HandlerThread thread =
+          new HandlerThread("MaterialDialog", Process.THREAD_PRIORITY_BACKGROUND);
+      thread.start();
+      background = new Handler(thread.getLooper());
+    }
+    return background;
+  }
+
+  /**
+   * @return an Executor running tasks in order on the library's background thread
+   */
+  static Executor backgroundExecutor() {
+    return BACKGROUND_EXECUTOR;
+  }
+}
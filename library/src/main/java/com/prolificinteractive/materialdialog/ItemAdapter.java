@@ -0,0 +1,395 @@
+package com.prolificinteractive.materialdialog;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.util.SparseBooleanArray;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.WrapperListAdapter;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter showing an array of labels with the library's row layouts.
+ * <p/>
+ * Rows are TextViews, so a recycled row is bound without looking anything up,
+ * and binding a row doesn't allocate. A row already showing its label isn't bound again.
+ * <p/>
+ * The labels can be replaced or filtered while the list is displayed. Item ids are the index
+ * of the labels in the array. They aren't reported as stable: the ListView would then look for
+ * checked items that moved in a few rows around their old position only, and with positions
+ * of the previous data. Checked items of a single or multi choice list are instead kept by
+ * index while rows move, and checked again at their new position.
+ * <p/>
+ * Without a {@link MaterialDialog.ItemFilter}, labels are matched against an index of their
+ * lowercase, accent-free forms, built once per array of labels. A query containing the
+ * previous one only looks at the previous matches. A filter still running when a newer one
+ * is requested stops early.
+ */
+class ItemAdapter extends BaseAdapter {
+
+  private static final CharSequence[] EMPTY = new CharSequence[0];
+
+  private final int layoutId;
+  private CharSequence[] items;
+  // Indexes of the items displayed, null when nothing is filtered out
+  private int[] visible = null;
+
+  // Indexes of the items checked in the ListView, saved while rows move. Main thread only.
+  private final CheckedItems checked = new CheckedItems();
+
+  // Only touched on the main thread
+  private CharSequence constraint = null;
+  private MaterialDialog.ItemFilter filter = null;
+
+  // Written on the main thread, read by filters to notice they are stale
+  private volatile int filterGeneration = 0;
+
+  // Search index, guarded by indexLock
+  private final Object indexLock = new Object();
+  private CharSequence[] indexedItems = null;
+  private String[] index = null;
+  private String lastQuery = null;
+  private int[] lastMatches = null;
+
+  /**
+   * @param items labels of the items, not copied
+   * @param layoutId layout of a row, whose root is a TextView
+   * @see R.layout#mdb__list_item
+   * @see R.layout#mdb__list_item_single_choice
+   * @see R.layout#mdb__list_item_multi_choice
+   */
+  ItemAdapter(CharSequence[] items, int layoutId) {
+    this.items = items != null ? items : EMPTY;
+    this.layoutId = layoutId;
+  }
+
+  /**
+   * @param adapter the adapter of a list, possibly wrapped
+   * @return the ItemAdapter of the list, or null if it doesn't use one
+   */
+  static ItemAdapter from(ListAdapter adapter) {
+    while (adapter instanceof WrapperListAdapter) {
+      adapter = ((WrapperListAdapter) adapter).getWrappedAdapter();
+    }
+    return adapter instanceof ItemAdapter ? (ItemAdapter) adapter : null;
+  }
+
+  /**
+   * @param adapter the adapter of a list, possibly wrapped
+   * @param position a position in the list
+   * @return the index in the array of the item at that position, the position itself if the
+   * list doesn't use an ItemAdapter
+   */
+  static int indexOf(ListAdapter adapter, int position) {
+    final ItemAdapter itemAdapter = from(adapter);
+    return itemAdapter != null ? itemAdapter.indexOf(position) : position;
+  }
+
+  int indexOf(int position) {
+    return visible == null ? position : visible[position];
+  }
+
+  /**
+   * @return the number of labels, including the ones hidden by the filter
+   */
+  int getItemCount() {
+    return items.length;
+  }
+
+  /**
+   * Check or uncheck every item of a single or multi choice list, including the ones hidden by
+   * the filter
+   */
+  void setAllChoices(boolean check, ListView listView) {
+    if (check) {
+      checked.checkAll(items.length);
+    } else {
+      checked.clear();
+    }
+    restoreChoices(listView);
+  }
+
+  @Override public int getCount() {
+    return visible == null ? items.length : visible.length;
+  }
+
+  @Override public CharSequence getItem(int position) {
+    return items[indexOf(position)];
+  }
+
+  @Override public long getItemId(int position) {
+    return indexOf(position);
+  }
+
+  @Override public boolean hasStableIds() {
+    return false;
+  }
+
+  @Override public View getView(int position, View convertView, ViewGroup parent) {
+    TextView view = (TextView) convertView;
+    if (view == null) {
+      // The parent has the dialog theme the row layouts are styled with
+      view = (TextView) LayoutInflater.from(parent.getContext())
+          .inflate(layoutId, parent, false);
+    }
+    final CharSequence item = getItem(position);
+    // A row only goes through layout again if it shows another label
+    if (view.getText() != item) {
+      view.setText(item);
+    }
+    return view;
+  }
+
+  /**
+   * Replace the labels, the current filter is applied to the new ones
+   */
+  void setItems(CharSequence[] newItems, ListView listView) {
+    items = newItems != null ? newItems : EMPTY;
+    if (constraint == null || visible == null) {
+      show(null, listView);
+      if (constraint != null) {
+        filter(constraint, filter, DialogThreads.backgroundExecutor(), listView);
+      }
+      return;
+    }
+    // Keep the previous matches that still exist until the filter is done
+    final int[] stale = new int[visible.length];
+    int count = 0;
+    for (int index : visible) {
+      if (index < items.length) {
+        stale[count++] = index;
+      }
+    }
+    final int[] kept = new int[count];
+    System.arraycopy(stale, 0, kept, 0, count);
+    show(kept, listView);
+    filter(constraint, filter, DialogThreads.backgroundExecutor(), listView);
+  }
+
+  /**
+   * Match the labels on a background thread, then display the ones that matched
+   *
+   * @param constraint what to match, null or empty to display every label
+   * @param filter decides which labels match, null to look for labels containing the constraint
+   */
+  void filter(CharSequence constraint, final MaterialDialog.ItemFilter filter, Executor executor,
+      final ListView listView) {
+    final int generation = ++filterGeneration;
+    if (constraint == null || constraint.length() == 0) {
+      this.constraint = null;
+      this.filter = null;
+      show(null, listView);
+      return;
+    }
+    // Matched against immutable copies, the user may keep editing theirs
+    final String query = constraint.toString();
+    final CharSequence[] snapshot = items;
+    this.constraint = query;
+    this.filter = filter;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        final int[] result;
+        synchronized (indexLock) {
+          result = filter == null
+              ? search(snapshot, query, generation) : match(snapshot, query, filter, generation);
+        }
+        if (result == null) {
+          // A newer filter was requested
+          return;
+        }
+        DialogThreads.main().post(new Runnable() {
+          @Override public void run() {
+            // Only the latest filter over the current labels is displayed
+            if (generation == filterGeneration && snapshot == items) {
+              show(result, listView);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * @return the indexes of the labels matched by the filter, or null if the filter became stale
+   */
+  private int[] match(CharSequence[] snapshot, String query, MaterialDialog.ItemFilter filter,
+      int generation) {
+    final int[] matches = new int[snapshot.length];
+    int count = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      if (isStale(i, generation)) {
+        return null;
+      }
+      if (snapshot[i] != null && filter.matches(snapshot[i], query)) {
+        matches[count++] = i;
+      }
+    }
+    return Arrays.copyOf(matches, count);
+  }
+
+  /**
+   * @return the indexes of the labels containing the query, or null if the search became stale
+   */
+  private int[] search(CharSequence[] snapshot, String query, int generation) {
+    if (indexedItems != snapshot) {
+      index = new String[snapshot.length];
+      for (int i = 0; i < snapshot.length; i++) {
+        index[i] = snapshot[i] != null ? normalize(snapshot[i]) : null;
+      }
+      indexedItems = snapshot;
+      lastQuery = null;
+      lastMatches = null;
+    }
+
+    final String needle = normalize(query);
+    // A query containing the previous one can only match labels the previous one matched
+    final int[] candidates = lastQuery != null && needle.contains(lastQuery)
+        ? lastMatches : null;
+    final int count = candidates != null ? candidates.length : snapshot.length;
+    final int[] matches = new int[count];
+    int found = 0;
+    for (int k = 0; k < count; k++) {
+      if (isStale(k, generation)) {
+        return null;
+      }
+      final int i = candidates != null ? candidates[k] : k;
+      if (index[i] != null && index[i].contains(needle)) {
+        matches[found++] = i;
+      }
+    }
+    lastQuery = needle;
+    lastMatches = Arrays.copyOf(matches, found);
+    return lastMatches;
+  }
+
+  private boolean isStale(int iteration, int generation) {
+    // Reading a volatile is cheap, but not free on every label
+    return (iteration & 0xff) == 0 && generation != filterGeneration;
+  }
+
+  /**
+   * @return the label in lowercase, without accents
+   */
+  static String normalize(CharSequence label) {
+    final String decomposed = Normalizer.normalize(label, Normalizer.Form.NFD);
+    final StringBuilder builder = new StringBuilder(decomposed.length());
+    for (int i = 0; i < decomposed.length(); i++) {
+      final char c = decomposed.charAt(i);
+      if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        builder.append(c);
+      }
+    }
+    return builder.toString().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Display a new selection of the labels, rebinding only the rows that changed
+   *
+   * @param newVisible indexes to display, null for all
+   */
+  private void show(int[] newVisible, ListView listView) {
+    final int oldCount = getCount();
+    final int[] oldVisible = visible;
+    final int newCount = newVisible == null ? items.length : newVisible.length;
+    if (oldCount != newCount || !sameIndexes(oldVisible, newVisible)) {
+      // Rows moved, the list lays them all out again but rows keeping their label are skipped
+      final boolean choices = listView.getChoiceMode() != AbsListView.CHOICE_MODE_NONE;
+      if (choices) {
+        saveChoices(listView);
+      }
+      visible = newVisible;
+      notifyDataSetChanged();
+      if (choices) {
+        restoreChoices(listView);
+      }
+      return;
+    }
+    visible = newVisible;
+    // Same rows, only the ones on screen whose label changed are bound again
+    final ListAdapter adapter = listView.getAdapter();
+    if (adapter == null) {
+      return;
+    }
+    final int first = listView.getFirstVisiblePosition();
+    for (int i = 0; i < listView.getChildCount(); i++) {
+      adapter.getView(first + i, listView.getChildAt(i), listView);
+    }
+  }
+
+  /**
+   * Record the checked rows by index, before the rows move. Hidden items keep their state.
+   */
+  private void saveChoices(ListView listView) {
+    // Positions the ListView knows of, from before the labels were replaced if they were
+    final int count = listView.getCount();
+    final SparseBooleanArray positions = listView.getCheckedItemPositions();
+    boolean anyChecked = false;
+    for (int i = 0; positions != null && i < positions.size(); i++) {
+      if (positions.valueAt(i) && positions.keyAt(i) < count) {
+        anyChecked = true;
+        break;
+      }
+    }
+
+    if (visible == null
+        || (anyChecked && listView.getChoiceMode() == AbsListView.CHOICE_MODE_SINGLE)) {
+      checked.clear();
+    } else {
+      for (int index : visible) {
+        checked.setChecked(index, false);
+      }
+    }
+    for (int i = 0; anyChecked && i < positions.size(); i++) {
+      final int position = positions.keyAt(i);
+      if (positions.valueAt(i) && position < count && indexOf(position) < items.length) {
+        checked.setChecked(indexOf(position), true);
+      }
+    }
+  }
+
+  /**
+   * Check the rows of the checked indexes at their new position
+   */
+  private void restoreChoices(ListView listView) {
+    listView.clearChoices();
+    for (int i = checked.nextChecked(0); i >= 0; i = checked.nextChecked(i + 1)) {
+      final int position = positionOf(i);
+      if (position >= 0) {
+        listView.setItemChecked(position, true);
+      }
+    }
+  }
+
+  /**
+   * @return the position of the item at an index in the array, or -1 if it isn't displayed
+   */
+  private int positionOf(int index) {
+    if (visible == null) {
+      return index < items.length ? index : -1;
+    }
+    final int position = Arrays.binarySearch(visible, index);
+    return position >= 0 ? position : -1;
+  }
+
+  private boolean sameIndexes(int[] a, int[] b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null || b == null || a.length != b.length) {
+      return false;
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != b[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
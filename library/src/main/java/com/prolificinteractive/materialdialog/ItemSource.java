@@ -0,0 +1,25 @@
+package com.prolificinteractive.materialdialog;
+
+/**
+ * Supplies the labels of a list dialog one at a time, so they don't all have to exist
+ * before the dialog is created.
+ *
+ * @see com.prolificinteractive.materialdialog.MaterialDialog.Builder#setItems(ItemSource,
+ * android.content.DialogInterface.OnClickListener)
+ * @see PagedItemSource
+ */
+public interface ItemSource {
+
+  /**
+   * @return the number of items
+   */
+  public int count();
+
+  /**
+   * Called on the main thread while the list is displayed
+   *
+   * @param position position of the item
+   * @return the label of the item, or null if it isn't available yet
+   */
+  public CharSequence get(int position);
+}
@@ -0,0 +1,54 @@
+package com.prolificinteractive.materialdialog;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+/**
+ * Adapter showing the labels of an {@link ItemSource}
+ */
+class ItemSourceAdapter extends BaseAdapter {
+
+  private final ItemSource source;
+  private final int layoutId;
+
+  /**
+   * @param layoutId layout of a row, whose root is a TextView
+   */
+  ItemSourceAdapter(ItemSource source, int layoutId) {
+    this.source = source;
+    this.layoutId = layoutId;
+    if (source instanceof PagedItemSource) {
+      ((PagedItemSource) source).setAdapterListener(
+          new PagedItemSource.OnPageLoadedListener() {
+            @Override public void onPageLoaded(int offset, int size) {
+              notifyDataSetChanged();
+            }
+          });
+    }
+  }
+
+  @Override public int getCount() {
+    return source.count();
+  }
+
+  @Override public CharSequence getItem(int position) {
+    return source.get(position);
+  }
+
+  @Override public long getItemId(int position) {
+    return position;
+  }
+
+  @Override public View getView(int position, View convertView, ViewGroup parent) {
+    TextView view = (TextView) convertView;
+    if (view == null) {
+      view = (TextView) LayoutInflater.from(parent.getContext())
+          .inflate(layoutId, parent, false);
+    }
+    view.setText(source.get(position));
+    return view;
+  }
+}
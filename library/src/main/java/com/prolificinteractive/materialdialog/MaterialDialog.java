@@ -1,19 +1,28 @@
 package com.prolificinteractive.materialdialog;
 
+import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
+import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.Spanned;
 import android.text.TextUtils;
-import android.util.TypedValue;
-import android.view.ContextThemeWrapper;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.view.Window;
 import android.widget.AbsListView;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
+import android.widget.Checkable;
+import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -21,6 +30,9 @@ import android.widget.ListAdapter;
 import android.widget.ListView;
 import android.widget.ScrollView;
 import android.widget.TextView;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
 
 /**
  * A subclass of Dialog that can display one, two or three buttons,
@@ -28,23 +40,111 @@ import android.widget.TextView;
  */
 public class MaterialDialog extends Dialog {
 
-  private final LinearLayout topPanel;
-  private final LinearLayout contentPanel;
-  private final FrameLayout customPanel;
-  private final ViewGroup buttonPanel;
+  private LinearLayout contentPanel;
+  // Added under the message by subclasses, such as MaterialProgressDialog's progress bar
+  private View contentFooter;
 
-  private final ImageView iconView;
-  private final TextView titleView;
-  private final TextView messageView;
-  private final View noButtonSpacer;
+  // Panels are inflated from their ViewStub the first time they have something to show,
+  // their views are null until then
+  private LinearLayout topPanel;
+  private ImageView iconView;
+  private TextView titleView;
 
-  private final TextView buttonPositive;
-  private final TextView buttonNegative;
-  private final TextView buttonNeutral;
+  private ScrollView scrollView;
+  private MaterialDialogMessageView messageView;
+  private View noButtonSpacer;
 
-  private final ViewGroup customContainer;
-  private final ListView listView;
-  private final ScrollView scrollView;
+  private EditText searchView;
+  private ListView listView;
+  private Drawable listDivider;
+  private int listDividerHeight;
+
+  private FrameLayout customPanel;
+  private ViewGroup customContainer;
+
+  private ViewGroup buttonPanel;
+  private TextView buttonPositive;
+  private TextView buttonNegative;
+  private TextView buttonNeutral;
+
+  private boolean searchable = false;
+  private final TextWatcher searchWatcher = new TextWatcher() {
+    @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override public void onTextChanged(CharSequence s, int start, int before, int count) {
+    }
+
+    @Override public void afterTextChanged(Editable s) {
+      if (searchable && ItemAdapter.from(listView.getAdapter()) != null) {
+        filterItems(s);
+      }
+    }
+  };
+
+  private static final String TAG = "MaterialDialog";
+
+  private static final String STATE_CHECKED_ITEMS = "mdb:checkedItems";
+  private static final String STATE_SCROLL_Y = "mdb:scrollY";
+
+  private static volatile Tracer tracer = NoOpTracer.INSTANCE;
+
+  private MaterialDialogLayout root;
+  private final ButtonDispatcher buttonDispatcher = new ButtonDispatcher();
+  private FrameTrace frameTrace;
+  private CheckedItems checkedItems;
+  private MessageStreamAdapter messageStream;
+  // Icon being decoded in the background, 0 if none
+  private int pendingIconId = 0;
+  // Resource id of the icon shown or loading, 0 if it was set as a Drawable
+  private int iconResId = 0;
+  // Set while an Editor applies its changes, panel visibilities are then updated once at the end
+  private boolean editing = false;
+  private boolean topPanelChanged = false;
+  private boolean contentPanelsChanged = false;
+
+  private final int theme;
+  private View pooledContent;
+  private OnDismissListener dismissListener;
+  private OnDismissListener queueListener;
+  // Only dialogs the library shows itself give their pooled tree back, others may be shown again
+  private boolean recycleOnDismiss = false;
+  // Set when the dialog is torn down without the user dismissing it, such as on rotation
+  private boolean dismissListenerSuppressed = false;
+  private boolean recycled = false;
+
+  // Set when the dialog is shown in the window of this Activity instead of its own
+  private final Activity overlayHost;
+  private MaterialDialogOverlay overlay;
+  private boolean overlayShowing = false;
+  private View overlayPreviousFocus;
+  // Listeners the Dialog keeps to itself, needed to show it as an overlay
+  private OnCancelListener cancelListener;
+  private OnShowListener showListener;
+  private OnKeyListener keyListener;
+  private boolean cancelable = true;
+  private Boolean canceledOnTouchOutside;
+
+  private final OnDismissListener onDismissed = new OnDismissListener() {
+    @Override public void onDismiss(DialogInterface dialog) {
+      if (dismissListener != null && !dismissListenerSuppressed) {
+        dismissListener.onDismiss(dialog);
+      }
+      dismissListenerSuppressed = false;
+      if (messageStream != null) {
+        messageStream.close();
+      }
+      if (recycleOnDismiss) {
+        recycle();
+      }
+      // Last, so the next dialog of the queue can reuse the tree recycled above
+      final OnDismissListener listener = queueListener;
+      if (listener != null) {
+        queueListener = null;
+        listener.onDismiss(dialog);
+      }
+    }
+  };
 
   /**
    * Construct an MaterialDialog that uses the theme defined using
@@ -63,38 +163,723 @@ public class MaterialDialog extends Dialog {
    * @see com.prolificinteractive.materialdialog.R.style#Theme_MaterialDialog_Dark
    */
   public MaterialDialog(Context context, int theme) {
-    super(context, getDialogTheme(context, theme));
+    this(context, getDialogTheme(context, theme), null, null);
+  }
+
+  /**
+   * Construct an MaterialDialog on top of a view tree borrowed from the
+   * {@link com.prolificinteractive.materialdialog.MaterialDialogViewPool}.
+   * The dialog gives its tree up when it is dismissed, if {@link #setRecycleOnDismiss()} was
+   * called.
+   *
+   * @param theme resolved theme of the dialog
+   * @param pooledContent reset mdb__dialog tree, or null to inflate a new one
+   * @param overlayHost Activity to show the dialog in as an overlay, or null to show it in a
+   * window of its own
+   */
+  private MaterialDialog(Context context, int theme, View pooledContent, Activity overlayHost) {
+    super(context, theme);
+    final long start = System.nanoTime();
     getWindow().requestFeature(Window.FEATURE_NO_TITLE);
-    setContentView(R.layout.mdb__dialog);
+    this.theme = theme;
+    this.overlayHost = overlayHost;
+    attachContent(pooledContent);
+    super.setOnDismissListener(onDismissed);
+
+    final Tracer tracer = MaterialDialog.tracer;
+    if (tracer != NoOpTracer.INSTANCE) {
+      tracer.onConstructed(this, System.nanoTime() - start,
+          pooledContent == null ? countViews(root) : 0);
+    }
+  }
 
-    topPanel = (LinearLayout) findViewById(R.id.mdb__topPanel);
-    contentPanel = (LinearLayout) findViewById(R.id.mdb__contentPanel);
-    customPanel = (FrameLayout) findViewById(R.id.mdb__customPanel);
-    buttonPanel = (ViewGroup) findViewById(R.id.mdb__buttonPanel);
+  /**
+   * Use a view tree as the content of the dialog
+   *
+   * @param pooledContent reset mdb__dialog tree, or null to inflate a new one
+   */
+  private void attachContent(View pooledContent) {
+    this.pooledContent = pooledContent;
+    root = (MaterialDialogLayout) (pooledContent != null ? pooledContent
+        : LayoutInflater.from(getContext()).inflate(R.layout.mdb__dialog, null));
+    if (overlayHost == null) {
+      setContentView(root, MaterialDialogViewPool.newLayoutParams());
+    }
+    // Created again around the new tree when shown
+    overlay = null;
 
-    iconView = (ImageView) findViewById(android.R.id.icon);
-    titleView = (TextView) findViewById(R.id.mdb__title);
-    messageView = (TextView) findViewById(R.id.mdb__message);
-    noButtonSpacer = findViewById(R.id.mdb__textSpacerNoButtons);
+    contentPanel = (LinearLayout) root.findViewById(R.id.mdb__contentPanel);
+    unbindPanels();
+    // A pooled tree, or one prepared by createAsync(), may have panels inflated already
+    bindInflatedPanels();
+  }
 
-    customContainer = (ViewGroup) findViewById(android.R.id.custom);
-    listView = (ListView) findViewById(R.id.mdb__list);
-    scrollView = (ScrollView) findViewById(R.id.mdb__scroll);
+  /**
+   * Take a new view tree, from the pool if it has one, after the previous tree was returned
+   */
+  private void reattachContent() {
+    attachContent(MaterialDialogViewPool.getInstance().acquire(theme));
+    recycled = false;
+  }
 
-    buttonPositive = (TextView) findViewById(android.R.id.button1);
-    buttonNegative = (TextView) findViewById(android.R.id.button2);
-    buttonNeutral = (TextView) findViewById(android.R.id.button3);
+  private void unbindPanels() {
+    topPanel = null;
+    iconView = null;
+    titleView = null;
+    scrollView = null;
+    messageView = null;
+    noButtonSpacer = null;
+    searchView = null;
+    listView = null;
+    customPanel = null;
+    customContainer = null;
+    buttonPanel = null;
+    buttonPositive = null;
+    buttonNegative = null;
+    buttonNeutral = null;
+  }
+
+  private void bindInflatedPanels() {
+    View panel = root.findViewById(R.id.mdb__topPanel);
+    if (panel != null) {
+      bindTopPanel(panel);
+    }
+    panel = root.findViewById(R.id.mdb__scroll);
+    if (panel != null) {
+      bindMessagePanel(panel);
+    }
+    panel = root.findViewById(R.id.mdb__search);
+    if (panel != null) {
+      bindSearchPanel(panel);
+    }
+    panel = root.findViewById(R.id.mdb__list);
+    if (panel != null) {
+      bindListPanel(panel);
+    }
+    panel = root.findViewById(R.id.mdb__customPanel);
+    if (panel != null) {
+      bindCustomPanel(panel);
+    }
+    panel = root.findViewById(R.id.mdb__buttonPanel);
+    if (panel != null) {
+      bindButtonPanel(panel);
+    }
+  }
+
+  private void bindTopPanel(View panel) {
+    topPanel = (LinearLayout) panel;
+    iconView = (ImageView) panel.findViewById(android.R.id.icon);
+    titleView = (TextView) panel.findViewById(R.id.mdb__title);
+  }
+
+  private void bindMessagePanel(View panel) {
+    scrollView = (ScrollView) panel;
+    messageView = (MaterialDialogMessageView) panel.findViewById(R.id.mdb__message);
+    noButtonSpacer = panel.findViewById(R.id.mdb__textSpacerNoButtons);
+  }
+
+  private void bindSearchPanel(View panel) {
+    searchView = (EditText) panel;
+    searchView.addTextChangedListener(searchWatcher);
+  }
+
+  private void bindListPanel(View panel) {
+    listView = (ListView) panel;
+    listDivider = listView.getDivider();
+    listDividerHeight = listView.getDividerHeight();
+  }
+
+  private void bindCustomPanel(View panel) {
+    customPanel = (FrameLayout) panel;
+    customContainer = (ViewGroup) panel.findViewById(android.R.id.custom);
+  }
+
+  private void bindButtonPanel(View panel) {
+    buttonPanel = (ViewGroup) panel;
+    buttonPositive = (TextView) panel.findViewById(android.R.id.button1);
+    buttonNegative = (TextView) panel.findViewById(android.R.id.button2);
+    buttonNeutral = (TextView) panel.findViewById(android.R.id.button3);
+
+    buttonPositive.setOnClickListener(buttonDispatcher);
+    buttonNegative.setOnClickListener(buttonDispatcher);
+    buttonNeutral.setOnClickListener(buttonDispatcher);
+  }
+
+  private void ensureTopPanel() {
+    if (topPanel == null) {
+      bindTopPanel(inflatePanel(root, R.id.mdb__topPanelStub));
+    }
+  }
+
+  private void ensureMessagePanel() {
+    if (scrollView == null) {
+      bindMessagePanel(inflatePanel(root, R.id.mdb__scrollStub));
+    }
+  }
+
+  private void ensureSearchPanel() {
+    if (searchView == null) {
+      bindSearchPanel(inflatePanel(root, R.id.mdb__searchStub));
+    }
+  }
+
+  private void ensureListPanel() {
+    if (listView == null) {
+      bindListPanel(inflatePanel(root, R.id.mdb__listStub));
+    }
+  }
+
+  private void ensureCustomPanel() {
+    if (customPanel == null) {
+      bindCustomPanel(inflatePanel(root, R.id.mdb__customPanelStub));
+    }
+  }
+
+  private void ensureButtonPanel() {
+    if (buttonPanel == null) {
+      bindButtonPanel(inflatePanel(root, R.id.mdb__buttonPanelStub));
+    }
   }
 
   /**
-   * Get the list view used in the dialog
+   * Inflate a panel of an mdb__dialog tree in place of its ViewStub.
+   * This can be done on a background thread, as long as the tree isn't attached to a window.
+   *
+   * @param root the mdb__dialog tree
+   * @param stubId id of the ViewStub of the panel
+   * @return the panel
+   */
+  static View inflatePanel(View root, int stubId) {
+    return ((ViewStub) root.findViewById(stubId)).inflate();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException if this dialog gave its views up, which only happens to
+   * dismissed dialogs shown by {@link Builder#show()}, a {@link MaterialDialogQueue} or a
+   * {@link MaterialDialogFragment}, or if the dialog was dismissed before the end of its
+   * message stream was read
+   */
+  @Override public void show() {
+    checkNotRecycled();
+    if (messageStream != null && messageStream.isTruncated()) {
+      throw new IllegalStateException(
+          "The message stream was closed before its end when the dialog was dismissed, "
+              + "set it again before showing the dialog"
+      );
+    }
+    final Tracer tracer = MaterialDialog.tracer;
+    if (tracer != NoOpTracer.INSTANCE) {
+      if (frameTrace == null) {
+        frameTrace = new FrameTrace();
+      }
+      frameTrace.start(tracer, System.nanoTime());
+      root.setTraceListener(frameTrace);
+    }
+    if (overlayHost != null) {
+      showOverlay();
+    } else {
+      super.show();
+    }
+  }
+
+  /**
+   * @return true if the dialog is showing, in its own window or as an overlay
+   */
+  @Override public boolean isShowing() {
+    return overlayHost != null ? overlayShowing : super.isShowing();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * An overlay is hidden from the Activity's window, and shown again by {@link #show()}.
+   */
+  @Override public void hide() {
+    if (overlayHost == null) {
+      super.hide();
+      return;
+    }
+    if (overlayShowing && overlay.getVisibility() == View.VISIBLE) {
+      overlay.setVisibility(View.GONE);
+      if (overlayPreviousFocus != null) {
+        overlayPreviousFocus.requestFocus();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * An overlay can only be dismissed on the main thread.
+   */
+  @Override public void dismiss() {
+    if (overlayHost != null) {
+      dismissOverlay();
+    } else {
+      super.dismiss();
+    }
+  }
+
+  @Override public void cancel() {
+    if (overlayHost == null) {
+      super.cancel();
+      return;
+    }
+    if (overlayShowing && cancelListener != null) {
+      // Posted, like the Dialog does, so the cancel listener is called before the dismiss one
+      DialogThreads.main().post(new Runnable() {
+        @Override public void run() {
+          cancelListener.onCancel(MaterialDialog.this);
+        }
+      });
+    }
+    dismissOverlay();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Overlay dialogs search their content, which isn't in the dialog's window.
+   */
+  @Override public View findViewById(int id) {
+    if (overlayHost == null) {
+      return super.findViewById(id);
+    }
+    return root != null ? root.findViewById(id) : null;
+  }
+
+  private void showOverlay() {
+    if (overlayShowing) {
+      // Hidden by hide(), such as by a DialogFragment while its Activity is stopped
+      if (overlay.getVisibility() != View.VISIBLE) {
+        overlay.setVisibility(View.VISIBLE);
+        overlay.requestFocus();
+      }
+      return;
+    }
+    if (overlay == null) {
+      overlay = new MaterialDialogOverlay(overlayHost, this, root);
+    }
+    final ViewGroup decor = (ViewGroup) overlayHost.getWindow().getDecorView();
+    overlayPreviousFocus = decor.findFocus();
+    // It may have been dismissed while hidden
+    overlay.setVisibility(View.VISIBLE);
+    decor.addView(overlay, new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    overlay.requestFocus();
+    overlayShowing = true;
+    onStart();
+    if (showListener != null) {
+      DialogThreads.main().post(new Runnable() {
+        @Override public void run() {
+          showListener.onShow(MaterialDialog.this);
+        }
+      });
+    }
+  }
+
+  private void dismissOverlay() {
+    if (!overlayShowing) {
+      return;
+    }
+    overlayShowing = false;
+    final ViewGroup decor = (ViewGroup) overlay.getParent();
+    if (decor != null) {
+      decor.removeView(overlay);
+    }
+    if (overlayPreviousFocus != null) {
+      overlayPreviousFocus.requestFocus();
+      overlayPreviousFocus = null;
+    }
+    onStop();
+    DialogThreads.main().post(new Runnable() {
+      @Override public void run() {
+        onDismissed.onDismiss(MaterialDialog.this);
+      }
+    });
+  }
+
+  /**
+   * Called by the overlay with the keys its content didn't handle
+   *
+   * @return true if the key was handled
+   */
+  boolean onOverlayKeyEvent(KeyEvent event) {
+    if (keyListener != null && keyListener.onKey(this, event.getKeyCode(), event)) {
+      return true;
+    }
+    if (event.getKeyCode() != KeyEvent.KEYCODE_BACK) {
+      return false;
+    }
+    if (event.getAction() == KeyEvent.ACTION_UP && !event.isCanceled()) {
+      onBackPressed();
+    }
+    return true;
+  }
+
+  /**
+   * Called by the overlay when the scrim around the content is touched
+   */
+  void onOverlayTouchOutside() {
+    final boolean closes = canceledOnTouchOutside != null
+        ? canceledOnTouchOutside : overlay.closesOnTouchOutside();
+    if (cancelable && closes) {
+      cancel();
+    }
+  }
+
+  @Override public void onBackPressed() {
+    if (overlayHost == null) {
+      super.onBackPressed();
+    } else if (cancelable) {
+      cancel();
+    }
+  }
+
+  @Override public void setCancelable(boolean flag) {
+    super.setCancelable(flag);
+    cancelable = flag;
+  }
+
+  @Override public void setCanceledOnTouchOutside(boolean cancel) {
+    super.setCanceledOnTouchOutside(cancel);
+    canceledOnTouchOutside = cancel;
+  }
+
+  @Override public void setOnCancelListener(OnCancelListener listener) {
+    super.setOnCancelListener(listener);
+    cancelListener = listener;
+  }
+
+  @Override public void setOnShowListener(OnShowListener listener) {
+    super.setOnShowListener(listener);
+    showListener = listener;
+  }
+
+  @Override public void setOnKeyListener(OnKeyListener onKeyListener) {
+    super.setOnKeyListener(onKeyListener);
+    keyListener = onKeyListener;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * On top of the state of the views, this saves the checked items of a list using a
+   * {@link CheckedItems} as one bit per item, and the scroll position of the message.
+   */
+  @Override public Bundle onSaveInstanceState() {
+    final Bundle state = super.onSaveInstanceState();
+    if (checkedItems != null) {
+      state.putLongArray(STATE_CHECKED_ITEMS, checkedItems.toWords());
+    }
+    if (scrollView != null && scrollView.getScrollY() != 0) {
+      state.putInt(STATE_SCROLL_Y, scrollView.getScrollY());
+    }
+    return state;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The dialog should have been given the same contents as the one that saved the state,
+   * a {@link CheckedItems} set up by the {@link Builder} receives the saved checked items.
+   */
+  @Override public void onRestoreInstanceState(Bundle savedInstanceState) {
+    super.onRestoreInstanceState(savedInstanceState);
+    final long[] checked = savedInstanceState.getLongArray(STATE_CHECKED_ITEMS);
+    if (checked != null && checkedItems != null) {
+      checkedItems.setWords(checked);
+      listView.invalidateViews();
+    }
+    final int scrollY = savedInstanceState.getInt(STATE_SCROLL_Y);
+    if (scrollY != 0 && scrollView != null) {
+      // The ScrollView clamps to the size of the message, which isn't laid out yet
+      scrollView.post(new Runnable() {
+        @Override public void run() {
+          scrollView.scrollTo(0, scrollY);
+        }
+      });
+    }
+  }
+
+  /**
+   * Set the {@link Tracer} notified of the timings of every dialog
+   *
+   * @param tracer the tracer, or null to stop tracing
+   */
+  public static void setTracer(Tracer tracer) {
+    MaterialDialog.tracer = tracer == null ? NoOpTracer.INSTANCE : tracer;
+  }
+
+  /**
+   * @return the current Tracer, never null
+   */
+  static Tracer getTracer() {
+    return tracer;
+  }
+
+  private static int countViews(View view) {
+    int count = 1;
+    if (view instanceof ViewGroup) {
+      ViewGroup group = (ViewGroup) view;
+      for (int i = 0; i < group.getChildCount(); i++) {
+        count += countViews(group.getChildAt(i));
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Set a listener to be invoked when the dialog is dismissed
+   *
+   * @param listener The {@link DialogInterface.OnDismissListener} to use
+   */
+  @Override public void setOnDismissListener(OnDismissListener listener) {
+    dismissListener = listener;
+  }
+
+  /**
+   * @param listener notified once, after every other dismiss listener, the next time the
+   * dialog is dismissed
+   */
+  void setQueueListener(OnDismissListener listener) {
+    queueListener = listener;
+  }
+
+  /**
+   * Give the view tree up once the dialog is dismissed, back to the pool if it came from it.
+   * Only for dialogs the library shows and drops itself, as the dialog can't be used afterwards
+   * unless a Builder rebinds it.
+   */
+  void setRecycleOnDismiss() {
+    recycleOnDismiss = true;
+  }
+
+  /**
+   * Skip the listener set with {@link #setOnDismissListener(OnDismissListener)} the next time
+   * the dialog is dismissed. The tree is still recycled and the queue still notified.
+   */
+  void suppressDismissListener() {
+    dismissListenerSuppressed = true;
+  }
+
+  /**
+   * Reset the view tree and hand it back to the pool if it was borrowed from it, or drop it.
+   * After this the dialog can no longer be shown or changed, whether the pool had a tree for
+   * it or not, until {@link Builder#applyTo(MaterialDialog)} gives it a new one.
+   */
+  void recycle() {
+    if (recycled) {
+      return;
+    }
+    recycled = true;
+    ViewGroup parent = (ViewGroup) root.getParent();
+    if (parent != null) {
+      parent.removeView(root);
+    }
+    resetContent();
+    // The next dialog using the tree adds its own
+    if (searchView != null) {
+      searchView.removeTextChangedListener(searchWatcher);
+    }
+    // Trees inflated by the dialog hold on to its Activity, only pooled ones go back
+    if (pooledContent != null) {
+      MaterialDialogViewPool.getInstance().release(theme, pooledContent);
+    }
+    // The tree may now belong to another dialog, which this one mustn't change
+    unbindPanels();
+    pooledContent = null;
+    root = null;
+    contentPanel = null;
+    overlay = null;
+  }
+
+  /**
+   * @throws IllegalStateException if the dialog gave its views up
+   */
+  private void checkNotRecycled() {
+    if (recycled) {
+      throw new IllegalStateException("This dialog gave its views up when it was dismissed, "
+          + "create a new dialog or rebind it with Builder.applyTo()");
+    }
+  }
+
+  /**
+   * Put every view back in the state it has right after inflating mdb__dialog
+   */
+  private void resetContent() {
+    root.setTraceListener(null);
+    closeMessageStream();
+    pendingIconId = 0;
+    iconResId = 0;
+    if (topPanel != null) {
+      iconView.setImageDrawable(null);
+      titleView.setText(null);
+      setTopPanelVisibility();
+    }
+    if (scrollView != null) {
+      messageView.setText(null);
+      messageView.setVisibility(View.GONE);
+      noButtonSpacer.setVisibility(View.GONE);
+      scrollView.scrollTo(0, 0);
+      scrollView.setVisibility(View.GONE);
+    }
+    if (customPanel != null) {
+      customContainer.removeAllViews();
+      customPanel.setVisibility(View.GONE);
+    }
+    if (listView != null) {
+      listView.setOnItemClickListener(null);
+      listView.setAdapter(null);
+      listView.setChoiceMode(AbsListView.CHOICE_MODE_NONE);
+      listView.setVisibility(View.GONE);
+    }
+    if (contentFooter != null) {
+      contentPanel.removeView(contentFooter);
+      contentFooter = null;
+    }
+    checkedItems = null;
+    searchable = false;
+    if (searchView != null) {
+      searchView.setText(null);
+      searchView.setVisibility(View.GONE);
+    }
+    buttonDispatcher.clear();
+    if (buttonPanel != null) {
+      resetButton(buttonPositive);
+      resetButton(buttonNegative);
+      resetButton(buttonNeutral);
+      buttonPanel.setVisibility(View.GONE);
+    }
+    contentPanel.setVisibility(View.GONE);
+  }
+
+  private static void resetButton(TextView button) {
+    button.setText(null);
+    button.setVisibility(View.GONE);
+  }
+
+  /**
+   * Get the list view used in the dialog, it is inflated on the first call
    *
    * @return the ListView
    */
   public ListView getListView() {
+    checkNotRecycled();
+    ensureListPanel();
     return listView;
   }
 
+  /**
+   * Replace the items of a list created from an array of labels, while the dialog is showing.
+   * If the number of items is unchanged, only the rows on screen whose label changed are bound
+   * again. Otherwise the list is laid out again, but rows keeping their label aren't rebound.
+   * A filter set with {@link #filterItems(CharSequence)} is applied to the new items.
+   *
+   * @param items the new labels, not copied
+   * @throws IllegalStateException if the list wasn't created from an array of labels
+   */
+  public void updateItems(CharSequence[] items) {
+    checkNotRecycled();
+    getItemAdapter().setItems(items, listView);
+  }
+
+  /**
+   * Only display the items of the list whose label contains a string, ignoring case and accents.
+   * Labels are matched on a background thread against an index built on the first search,
+   * and the matching items replace the displayed ones at once. Listeners are given the index
+   * of the item in the array, not its position in the filtered list. Checked items stay
+   * checked while hidden by the filter.
+   *
+   * @param constraint the string to look for, null or empty to display every item
+   * @throws IllegalStateException if the list wasn't created from an array of labels
+   */
+  public void filterItems(CharSequence constraint) {
+    filterItems(constraint, null);
+  }
+
+  /**
+   * Only display the items of the list matched by a filter.
+   * Labels are matched on a background thread and the matching items replace the displayed
+   * ones at once. Listeners are given the index of the item in the array, not its position
+   * in the filtered list.
+   *
+   * @param constraint what to match, null or empty to display every item
+   * @param filter decides which items match, called on a background thread,
+   * null to match labels containing the constraint
+   * @throws IllegalStateException if the list wasn't created from an array of labels
+   */
+  public void filterItems(CharSequence constraint, ItemFilter filter) {
+    checkNotRecycled();
+    getItemAdapter().filter(constraint, filter, DialogThreads.backgroundExecutor(), listView);
+  }
+
+  private ItemAdapter getItemAdapter() {
+    final ItemAdapter adapter = listView != null ? ItemAdapter.from(listView.getAdapter()) : null;
+    if (adapter == null) {
+      throw new IllegalStateException("The list needs to be created from an array of labels");
+    }
+    return adapter;
+  }
+
+  /**
+   * Get the checked items of a multi choice list that was set up with
+   * {@link Builder#setCheckedItems(CheckedItems)}.
+   * This is the live set, it is updated as items are clicked.
+   *
+   * @return the checked items, or null if the list doesn't use a {@link CheckedItems}
+   */
+  public CheckedItems getCheckedItems() {
+    return checkedItems;
+  }
+
+  /**
+   * Check or uncheck every item of a multi choice list, including items hidden by
+   * {@link #filterItems(CharSequence)}
+   *
+   * @param checked the new checked state
+   */
+  public void setAllItemsChecked(boolean checked) {
+    checkNotRecycled();
+    final ListAdapter adapter = listView != null ? listView.getAdapter() : null;
+    if (adapter == null) {
+      return;
+    }
+    // Filtered lists have fewer rows than items, both sets are indexed by item
+    final ItemAdapter itemAdapter = ItemAdapter.from(adapter);
+    if (checkedItems == null && itemAdapter != null) {
+      itemAdapter.setAllChoices(checked, listView);
+      listView.invalidateViews();
+      return;
+    }
+    if (checkedItems == null) {
+      if (checked) {
+        for (int i = 0; i < adapter.getCount(); i++) {
+          listView.setItemChecked(i, true);
+        }
+      } else {
+        listView.clearChoices();
+        listView.invalidateViews();
+      }
+      return;
+    }
+
+    if (checked) {
+      checkedItems.checkAll(itemAdapter != null ? itemAdapter.getItemCount() : adapter.getCount());
+    } else {
+      checkedItems.clear();
+    }
+    // Only the rows on screen need to be told
+    for (int i = 0; i < listView.getChildCount(); i++) {
+      View child = listView.getChildAt(i);
+      if (child instanceof Checkable) {
+        ((Checkable) child).setChecked(checked);
+      }
+    }
+  }
+
   /**
    * Set the title text for this dialog
    *
@@ -110,6 +895,11 @@ public class MaterialDialog extends Dialog {
    * @param title The new text for the title
    */
   @Override public void setTitle(CharSequence title) {
+    checkNotRecycled();
+    if (topPanel == null && TextUtils.isEmpty(title)) {
+      return;
+    }
+    ensureTopPanel();
     titleView.setText(title);
     setTopPanelVisibility();
   }
@@ -118,6 +908,13 @@ public class MaterialDialog extends Dialog {
    * Correctly set top panel visibilities
    */
   private void setTopPanelVisibility() {
+    if (editing) {
+      topPanelChanged = true;
+      return;
+    }
+    if (topPanel == null) {
+      return;
+    }
     iconView.setVisibility(iconView.getDrawable() != null ? View.VISIBLE : View.GONE);
     titleView.setVisibility(TextUtils.isEmpty(titleView.getText()) ? View.GONE : View.VISIBLE);
     topPanel.setVisibility(
@@ -141,27 +938,165 @@ public class MaterialDialog extends Dialog {
    * @param message the new text for the message
    */
   public void setMessage(CharSequence message) {
-    messageView.setText(message);
+    checkNotRecycled();
+    closeMessageStream();
+    if (messageView != null || !TextUtils.isEmpty(message)) {
+      ensureMessagePanel();
+      messageView.setText(message);
+    }
     setContentPanelsVisibility();
   }
 
   /**
-   * Set resId to 0 if you don't want an icon
+   * Display a message that has already been laid out as the dialog contents
+   *
+   * @param message the new message
+   */
+  public void setMessage(PrecomputedMessage message) {
+    checkNotRecycled();
+    closeMessageStream();
+    if (messageView != null || message != null) {
+      ensureMessagePanel();
+      messageView.setPrecomputedMessage(message);
+    }
+    setContentPanelsVisibility();
+  }
+
+  /**
+   * Display a very long message, one paragraph per line of text.
+   * Paragraphs are read on a background thread as the user scrolls and only the ones on screen
+   * are laid out. The reader is closed at the end of the message or when the dialog is
+   * dismissed, whichever comes first. A dialog dismissed before the end was read can only be
+   * shown again once a new stream is set.
+   * This replaces any message or list.
+   *
+   * @param reader the message
+   */
+  public void setMessageStream(Reader reader) {
+    setMessageStream(new MessageStreamAdapter.LineReader(reader));
+  }
+
+  /**
+   * Display a very long message, given in chunks of any size, one paragraph per line of text.
+   * Chunks are requested on a background thread as the user scrolls and only the paragraphs on
+   * screen are laid out. If the iterator is {@link java.io.Closeable}, it is closed at the end
+   * of the message or when the dialog is dismissed, whichever comes first. A dialog dismissed
+   * before the end was read can only be shown again once a new stream is set.
+   * This replaces any message or list.
+   *
+   * @param chunks the message
+   */
+  public void setMessageStream(Iterator<? extends CharSequence> chunks) {
+    setMessageStream(new MessageStreamAdapter.ChunkReader(chunks));
+  }
+
+  private void setMessageStream(MessageStreamAdapter.ParagraphReader reader) {
+    checkNotRecycled();
+    closeMessageStream();
+    if (messageView != null) {
+      messageView.setText(null);
+    }
+    ensureListPanel();
+    messageStream = new MessageStreamAdapter(reader, DialogThreads.backgroundExecutor(),
+        R.layout.mdb__message_paragraph);
+    checkedItems = null;
+    listView.setOnItemClickListener(null);
+    listView.setChoiceMode(AbsListView.CHOICE_MODE_NONE);
+    listView.setDivider(null);
+    listView.setAdapter(messageStream);
+    setContentPanelsVisibility();
+  }
+
+  private void closeMessageStream() {
+    if (messageStream == null) {
+      return;
+    }
+    messageStream.close();
+    if (listView.getAdapter() == messageStream) {
+      listView.setAdapter(null);
+    }
+    messageStream = null;
+    listView.setDivider(listDivider);
+    listView.setDividerHeight(listDividerHeight);
+  }
+
+  /**
+   * The width available to the text of the message, to
+   * {@linkplain PrecomputedMessage#create(android.content.Context, int, CharSequence, int)
+   * precompute} the messages of the next dialogs
+   *
+   * @return the width in pixels, or 0 if the dialog hasn't been laid out with a message
+   */
+  public int getMessageWidth() {
+    if (messageView == null || messageView.getWidth() == 0) {
+      return 0;
+    }
+    return Math.max(0, messageView.getWidth() - messageView.getCompoundPaddingLeft()
+        - messageView.getCompoundPaddingRight());
+  }
+
+  /**
+   * Set resId to 0 if you don't want an icon.
+   * Icons no larger than the icon slot are loaded right away. Larger ones are decoded down to
+   * the size they are displayed at on a background thread, unless the
+   * {@link MaterialDialogIconCache} has them already, so they may show up after the dialog.
    *
    * @param iconId the resourceId of the drawable to use as the icon or 0 if you don't want an icon
    */
-  public void setIcon(int iconId) {
+  public void setIcon(final int iconId) {
+    checkNotRecycled();
     if (iconId == 0) {
-      setIcon(null);
-    } else {
-      setIcon(getContext().getResources().getDrawable(iconId));
+      setIcon((Drawable) null);
+      return;
+    }
+    final Resources resources = getContext().getResources();
+    final Drawable small =
+        MaterialDialogIconCache.getInstance().loadIfSmall(resources, iconId, theme);
+    pendingIconId = 0;
+    iconResId = iconId;
+    if (small != null) {
+      showIcon(small);
+      return;
     }
+    showIcon(null);
+    pendingIconId = iconId;
+    DialogThreads.backgroundExecutor().execute(new Runnable() {
+      @Override public void run() {
+        Drawable icon = null;
+        try {
+          icon = MaterialDialogIconCache.getInstance().load(resources, iconId, theme);
+        } catch (RuntimeException e) {
+          Log.w(TAG, "Could not load the icon in the background, retrying on the main thread", e);
+        }
+        final Drawable loaded = icon;
+        DialogThreads.main().post(new Runnable() {
+          @Override public void run() {
+            // Unless another icon was set in the meantime
+            if (pendingIconId == iconId && !recycled) {
+              pendingIconId = 0;
+              showIcon(loaded != null ? loaded : resources.getDrawable(iconId));
+            }
+          }
+        });
+      }
+    });
   }
 
   /**
    * @param icon the icon to display, null if none
    */
   public void setIcon(Drawable icon) {
+    checkNotRecycled();
+    pendingIconId = 0;
+    iconResId = 0;
+    showIcon(icon);
+  }
+
+  private void showIcon(Drawable icon) {
+    if (topPanel == null && icon == null) {
+      return;
+    }
+    ensureTopPanel();
     iconView.setImageDrawable(icon);
     setTopPanelVisibility();
   }
@@ -172,29 +1107,93 @@ public class MaterialDialog extends Dialog {
    * @param view the View
    */
   public void setView(View view) {
+    checkNotRecycled();
+    if (customPanel == null && view == null) {
+      setContentPanelsVisibility();
+      return;
+    }
+    ensureCustomPanel();
     customContainer.removeAllViews();
     if (view != null) {
+      // A view reused from a dialog that was torn down is still attached to it
+      if (view.getParent() instanceof ViewGroup) {
+        ((ViewGroup) view.getParent()).removeView(view);
+      }
       customContainer.addView(view);
     }
     setContentPanelsVisibility();
   }
 
+  /**
+   * Show a view under the message, in the content panel. Unlike a custom view, it doesn't hide
+   * the message.
+   *
+   * @param footer the view, or null to remove the current one
+   */
+  void setContentFooter(View footer) {
+    if (contentFooter != null) {
+      contentPanel.removeView(contentFooter);
+    }
+    contentFooter = footer;
+    if (footer != null) {
+      contentPanel.addView(footer, new LinearLayout.LayoutParams(
+          ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+    }
+    setContentPanelsVisibility();
+  }
+
   /**
    * Correctly set visibility of content
    */
   private void setContentPanelsVisibility() {
-    boolean hasCustomView = customContainer.getChildCount() > 0;
-    customPanel.setVisibility(hasCustomView ? View.VISIBLE : View.GONE);
+    if (editing) {
+      contentPanelsChanged = true;
+      return;
+    }
+    boolean hasCustomView = customContainer != null && customContainer.getChildCount() > 0;
+    if (customPanel != null) {
+      customPanel.setVisibility(hasCustomView ? View.VISIBLE : View.GONE);
+    }
     contentPanel.setVisibility(hasCustomView ? View.GONE : View.VISIBLE);
     if (!hasCustomView) {
-      if (TextUtils.isEmpty(messageView.getText())) {
-        messageView.setVisibility(View.GONE);
-        listView.setVisibility(listView.getAdapter() != null ? View.VISIBLE : View.GONE);
-      } else {
-        messageView.setVisibility(View.VISIBLE);
-        listView.setVisibility(View.GONE);
+      final boolean hasMessage = messageView != null
+          && !TextUtils.isEmpty(messageView.getMessage());
+      if (scrollView != null) {
+        scrollView.setVisibility(hasMessage ? View.VISIBLE : View.GONE);
+        messageView.setVisibility(hasMessage ? View.VISIBLE : View.GONE);
+      }
+      if (listView != null) {
+        listView.setVisibility(!hasMessage && listView.getAdapter() != null
+            ? View.VISIBLE : View.GONE);
+      }
+    }
+    final boolean showSearch = searchable && listView != null
+        && listView.getVisibility() == View.VISIBLE
+        && ItemAdapter.from(listView.getAdapter()) != null;
+    if (showSearch) {
+      ensureSearchPanel();
+    }
+    if (searchView != null) {
+      searchView.setVisibility(showSearch ? View.VISIBLE : View.GONE);
+    }
+  }
+
+  /**
+   * Show a search field above a list created from an array of labels.
+   * Items are filtered as the user types, as with {@link #filterItems(CharSequence)}.
+   *
+   * @param searchable true to show the search field
+   */
+  public void setSearchable(boolean searchable) {
+    checkNotRecycled();
+    this.searchable = searchable;
+    if (!searchable && searchView != null && searchView.getText().length() > 0) {
+      searchView.setText(null);
+      if (ItemAdapter.from(listView.getAdapter()) != null) {
+        filterItems(null);
       }
     }
+    setContentPanelsVisibility();
   }
 
   /**
@@ -207,11 +1206,7 @@ public class MaterialDialog extends Dialog {
    * @param buttonText The text to display for the button.
    */
   public void setButton(final int id, CharSequence buttonText) {
-    setButton(id, buttonText, new View.OnClickListener() {
-      @Override public void onClick(View v) {
-        dismiss();
-      }
-    });
+    setButton(id, buttonText, null, null);
   }
 
   /**
@@ -226,14 +1221,7 @@ public class MaterialDialog extends Dialog {
    * @param listener Click listener, can be null
    */
   public void setButton(final int id, CharSequence buttonText, final OnClickListener listener) {
-    setButton(id, buttonText, new View.OnClickListener() {
-      @Override public void onClick(View v) {
-        if (listener != null) {
-          listener.onClick(MaterialDialog.this, id);
-        }
-        dismiss();
-      }
-    });
+    setButton(id, buttonText, listener, null);
   }
 
   /**
@@ -248,52 +1236,174 @@ public class MaterialDialog extends Dialog {
    * @param delegate Click delegate, can be null
    */
   public void setButton(final int id, CharSequence buttonText, final OnClickDelegate delegate) {
-    setButton(id, buttonText, new View.OnClickListener() {
-      @Override public void onClick(View v) {
-        boolean wasHandled = false;
-        if (delegate != null) {
-          wasHandled = delegate.onClick(MaterialDialog.this, id);
-        }
-        if (!wasHandled) {
-          dismiss();
-        }
-      }
-    });
+    setButton(id, buttonText, null, delegate);
   }
 
   /**
-   * Set a listener to be invoked when the indicated button of the dialog is pressed.
-   * Dialog will dismiss if delegate is null or it returns false.
+   * Show a button and register what it does with the {@link ButtonDispatcher}
    *
    * @param id Which button to set the text for, can be one of
    * {@link DialogInterface#BUTTON_POSITIVE},
    * {@link DialogInterface#BUTTON_NEGATIVE}, or
    * {@link DialogInterface#BUTTON_NEUTRAL}
    * @param buttonText The text to display for the button.
-   * @param listener View.OnClickListener for the button
+   * @param listener Click listener, can be null
+   * @param delegate Click delegate, can be null, used instead of the listener when set
    */
-  private void setButton(final int id, CharSequence buttonText,
-      final View.OnClickListener listener) {
-    TextView button;
+  private void setButton(int id, CharSequence buttonText, OnClickListener listener,
+      OnClickDelegate delegate) {
+    checkNotRecycled();
+    ensureButtonPanel();
+    final TextView button = getButton(id);
+
+    buttonDispatcher.set(id, listener, delegate);
+    buttonPanel.setVisibility(View.VISIBLE);
+    if (noButtonSpacer != null) {
+      noButtonSpacer.setVisibility(View.GONE);
+    }
+    button.setVisibility(View.VISIBLE);
+    // Same text would still lay the button bar out again
+    if (!sameText(button.getText(), buttonText)) {
+      button.setText(buttonText);
+    }
+  }
+
+  /**
+   * @param id one of DialogInterface.BUTTON_*
+   * @return the button, null if the button panel wasn't inflated yet
+   */
+  private TextView getButton(int id) {
     switch (id) {
       case DialogInterface.BUTTON_POSITIVE:
-        button = buttonPositive;
-        break;
+        return buttonPositive;
       case DialogInterface.BUTTON_NEGATIVE:
-        button = buttonNegative;
-        break;
+        return buttonNegative;
       case DialogInterface.BUTTON_NEUTRAL:
-        button = buttonNeutral;
-        break;
+        return buttonNeutral;
       default:
         throw new IllegalArgumentException("ID needs to be DialogInterface.BUTTON_*");
     }
+  }
 
-    buttonPanel.setVisibility(View.VISIBLE);
-    noButtonSpacer.setVisibility(View.GONE);
-    button.setVisibility(View.VISIBLE);
-    button.setText(buttonText);
-    button.setOnClickListener(listener);
+  /**
+   * @return true if the button already shows this text and does what the edit asks
+   */
+  private boolean isButtonSet(Editor.ButtonEdit edit) {
+    final TextView button = getButton(edit.id);
+    return button != null
+        && buttonPanel.getVisibility() == View.VISIBLE
+        && button.getVisibility() == View.VISIBLE
+        && buttonDispatcher.isSet(edit.id, edit.listener, edit.delegate)
+        && sameText(button.getText(), edit.text);
+  }
+
+  /**
+   * Start a batch of changes to the dialog's content, typically while it is showing. Changes are
+   * kept until {@link Editor#apply()}, which only touches the views whose content changed and
+   * updates the dialog's panels once, in a single layout pass.
+   * <pre>
+   * dialog.edit()
+   *     .setTitle(R.string.uploaded)
+   *     .setIcon(R.drawable.ic_done)
+   *     .setMessage(summary)
+   *     .setButton(DialogInterface.BUTTON_POSITIVE, getString(R.string.ok))
+   *     .apply();
+   * </pre>
+   *
+   * @return a new Editor for this dialog
+   */
+  public Editor edit() {
+    checkNotRecycled();
+    return new Editor();
+  }
+
+  private void apply(Editor editor) {
+    checkNotRecycled();
+    editing = true;
+    try {
+      if (editor.titleSet && !sameText(getTitle(), editor.title)) {
+        setTitle(editor.title);
+      }
+      if (editor.iconSet) {
+        if (editor.iconId != 0) {
+          if (editor.iconId != iconResId) {
+            setIcon(editor.iconId);
+          }
+        } else if (iconResId != 0 || pendingIconId != 0 || getIcon() != editor.icon) {
+          setIcon(editor.icon);
+        }
+      }
+      if (editor.messageSet && (messageStream != null
+          || !sameText(getMessage(), editor.message))) {
+        setMessage(editor.message);
+      }
+      if (editor.viewSet && getView() != editor.view) {
+        setView(editor.view);
+      }
+      for (int i = 0; i < editor.buttons.length; i++) {
+        final Editor.ButtonEdit button = editor.buttons[i];
+        if (button != null && !isButtonSet(button)) {
+          setButton(button.id, button.text, button.listener, button.delegate);
+        }
+      }
+    } finally {
+      editing = false;
+    }
+    if (topPanelChanged) {
+      topPanelChanged = false;
+      setTopPanelVisibility();
+    }
+    if (contentPanelsChanged) {
+      contentPanelsChanged = false;
+      setContentPanelsVisibility();
+    }
+  }
+
+  /**
+   * TextViews show null as empty text. Spanned text is only the same when it is the same
+   * instance, as its spans can differ where its characters don't.
+   */
+  private static boolean sameText(CharSequence shown, CharSequence text) {
+    if (TextUtils.isEmpty(shown)) {
+      return TextUtils.isEmpty(text);
+    }
+    if (shown instanceof Spanned || text instanceof Spanned) {
+      return shown == text;
+    }
+    return TextUtils.equals(shown, text);
+  }
+
+  private CharSequence getTitle() {
+    return titleView != null ? titleView.getText() : null;
+  }
+
+  private Drawable getIcon() {
+    return iconView != null ? iconView.getDrawable() : null;
+  }
+
+  private CharSequence getMessage() {
+    return messageView != null ? messageView.getMessage() : null;
+  }
+
+  /**
+   * @return the custom view, or null if there is none
+   */
+  private View getView() {
+    return customContainer != null && customContainer.getChildCount() > 0
+        ? customContainer.getChildAt(0) : null;
+  }
+
+  /**
+   * Inflate view trees for dialogs on a background thread and keep them in the
+   * {@link com.prolificinteractive.materialdialog.MaterialDialogViewPool}, so that dialogs
+   * later created by a {@link Builder} skip inflation.
+   *
+   * @param context Context that has the theme
+   * @param theme Theme of the dialogs to warm, 0 for the default
+   * @param count Number of view trees wanted
+   */
+  public static void prewarm(Context context, int theme, int count) {
+    MaterialDialogViewPool.getInstance().prefillAsync(context, theme, count);
   }
 
   /**
@@ -303,19 +1413,188 @@ public class MaterialDialog extends Dialog {
    * @param theme Theme user specifies
    * @return A (hopefully) usable theme for our dialog
    */
-  private static int getDialogTheme(Context context, int theme) {
+  static int getDialogTheme(Context context, int theme) {
     if (theme == 0) {
+      int defaultTheme = ThemeCache.getDefaultDialogTheme(context);
+      return defaultTheme != 0 ? defaultTheme : R.style.Theme_MaterialDialog;
+    }
+
+    return theme;
+  }
+
+  /**
+   * Single click listener shared by the three buttons of a dialog. It holds what each button
+   * does, so setting a button doesn't allocate a listener.
+   */
+  private final class ButtonDispatcher implements View.OnClickListener {
+
+    private final OnClickListener[] listeners = new OnClickListener[3];
+    private final OnClickDelegate[] delegates = new OnClickDelegate[3];
+
+    /**
+     * @param which one of DialogInterface.BUTTON_*
+     */
+    void set(int which, OnClickListener listener, OnClickDelegate delegate) {
+      listeners[index(which)] = listener;
+      delegates[index(which)] = delegate;
+    }
 
-      TypedValue out = new TypedValue();
-      context.getTheme().resolveAttribute(R.attr.MaterialDialogTheme, out, false);
-      if (out.type == TypedValue.TYPE_REFERENCE && out.data > 0) {
-        return out.data;
+    /**
+     * @return true if the button already has this listener and delegate
+     */
+    boolean isSet(int which, OnClickListener listener, OnClickDelegate delegate) {
+      return listeners[index(which)] == listener && delegates[index(which)] == delegate;
+    }
+
+    void clear() {
+      for (int i = 0; i < 3; i++) {
+        listeners[i] = null;
+        delegates[i] = null;
       }
+    }
+
+    @Override public void onClick(View v) {
+      final int which;
+      switch (v.getId()) {
+        case android.R.id.button1:
+          which = DialogInterface.BUTTON_POSITIVE;
+          break;
+        case android.R.id.button2:
+          which = DialogInterface.BUTTON_NEGATIVE;
+          break;
+        case android.R.id.button3:
+          which = DialogInterface.BUTTON_NEUTRAL;
+          break;
+        default:
+          return;
+      }
+
+      final OnClickDelegate delegate = delegates[index(which)];
+      final OnClickListener listener = listeners[index(which)];
+      boolean wasHandled = false;
+      if (delegate != null) {
+        wasHandled = delegate.onClick(MaterialDialog.this, which);
+      } else if (listener != null) {
+        listener.onClick(MaterialDialog.this, which);
+      }
+      if (!wasHandled) {
+        dismiss();
+      }
+    }
+
+    /**
+     * DialogInterface.BUTTON_POSITIVE, _NEGATIVE and _NEUTRAL are -1, -2 and -3
+     */
+    private int index(int which) {
+      return -which - 1;
+    }
+  }
+
+  /**
+   * Reports the first measure and draw after {@link #show()} to the {@link Tracer}
+   */
+  private final class FrameTrace implements MaterialDialogLayout.TraceListener {
+
+    private Tracer tracer;
+    private long showTime;
+    private boolean measured;
+
+    void start(Tracer tracer, long showTime) {
+      this.tracer = tracer;
+      this.showTime = showTime;
+      this.measured = false;
+    }
+
+    @Override public void onMeasured(long nanos) {
+      if (!measured) {
+        measured = true;
+        tracer.onFirstMeasure(MaterialDialog.this, nanos);
+      }
+    }
+
+    @Override public void onDrawn(long nanos) {
+      root.setTraceListener(null);
+      tracer.onFirstDraw(MaterialDialog.this, nanos);
+      tracer.onShowToFirstFrame(MaterialDialog.this, System.nanoTime() - showTime);
+    }
+  }
+
+  /**
+   * Receives timings of the work done to create and display dialogs, so they can be fed to
+   * a metrics pipeline. Set it with {@link MaterialDialog#setTracer(Tracer)}.
+   * All times are in nanoseconds and every method is called on the main thread.
+   */
+  public static interface Tracer {
+    /**
+     * Called at the end of the constructor
+     *
+     * @param dialog the new dialog
+     * @param nanos time spent inflating and looking up the dialog's views
+     * @param viewsInflated number of views inflated, 0 if they came from the
+     * {@link MaterialDialogViewPool}
+     */
+    public void onConstructed(MaterialDialog dialog, long nanos, int viewsInflated);
+
+    /**
+     * Called when a {@link Builder} has applied its arguments to a dialog
+     *
+     * @param dialog the dialog
+     * @param nanos time spent setting title, message, list, buttons and listeners
+     */
+    public void onBound(MaterialDialog dialog, long nanos);
+
+    /**
+     * @param dialog the dialog being shown
+     * @param nanos time spent in the first measure of the dialog's views after show()
+     */
+    public void onFirstMeasure(MaterialDialog dialog, long nanos);
+
+    /**
+     * @param dialog the dialog being shown
+     * @param nanos time spent in the first draw of the dialog's views after show()
+     */
+    public void onFirstDraw(MaterialDialog dialog, long nanos);
+
+    /**
+     * @param dialog the dialog being shown
+     * @param nanos time from the call to show() to the end of the first draw
+     */
+    public void onShowToFirstFrame(MaterialDialog dialog, long nanos);
+  }
+
+  private static final class NoOpTracer implements Tracer {
+
+    static final NoOpTracer INSTANCE = new NoOpTracer();
+
+    @Override public void onConstructed(MaterialDialog dialog, long nanos, int viewsInflated) {
+    }
+
+    @Override public void onBound(MaterialDialog dialog, long nanos) {
+    }
+
+    @Override public void onFirstMeasure(MaterialDialog dialog, long nanos) {
+    }
+
+    @Override public void onFirstDraw(MaterialDialog dialog, long nanos) {
+    }
 
-      return R.style.Theme_MaterialDialog;
+    @Override public void onShowToFirstFrame(MaterialDialog dialog, long nanos) {
     }
+  }
 
-    return theme;
+  /**
+   * Decides which items of a list are displayed by {@link #filterItems(CharSequence,
+   * ItemFilter)}
+   */
+  public static interface ItemFilter {
+    /**
+     * Called on a background thread
+     *
+     * @param item label of an item
+     * @param constraint what the list is filtered with, never empty
+     * @return true to display the item
+     */
+    public boolean matches(CharSequence item, CharSequence constraint);
   }
 
   /**
@@ -331,6 +1610,174 @@ public class MaterialDialog extends Dialog {
     public boolean onClick(MaterialDialog dialog, int which);
   }
 
+  /**
+   * Interface used to deliver a dialog that was prepared asynchronously
+   */
+  public static interface OnPreparedListener {
+    /**
+     * Called on the main thread
+     *
+     * @param dialog the dialog, ready to be shown
+     */
+    public void onPrepared(MaterialDialog dialog);
+  }
+
+  /**
+   * A batch of changes to a dialog's content, obtained from {@link #edit()}.
+   * Nothing is changed until {@link #apply()} is called, which must be on the main thread.
+   */
+  public final class Editor {
+
+    private boolean titleSet = false;
+    private CharSequence title;
+    private boolean iconSet = false;
+    private int iconId = 0;
+    private Drawable icon;
+    private boolean messageSet = false;
+    private CharSequence message;
+    private boolean viewSet = false;
+    private View view;
+    // Indexed by -1 - DialogInterface.BUTTON_*
+    private final ButtonEdit[] buttons = new ButtonEdit[3];
+
+    private Editor() {
+    }
+
+    /**
+     * @param titleId The resource id for the title
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setTitle(int titleId) {
+      return setTitle(getContext().getText(titleId));
+    }
+
+    /**
+     * @param title The new text for the title
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setTitle(CharSequence title) {
+      this.title = title;
+      titleSet = true;
+      return this;
+    }
+
+    /**
+     * @param iconId the resource id of the icon, 0 if none
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setIcon(int iconId) {
+      this.iconId = iconId;
+      icon = null;
+      iconSet = true;
+      return this;
+    }
+
+    /**
+     * @param icon the icon to display, null if none
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setIcon(Drawable icon) {
+      this.icon = icon;
+      iconId = 0;
+      iconSet = true;
+      return this;
+    }
+
+    /**
+     * @param messageId the resource id for the message
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setMessage(int messageId) {
+      return setMessage(getContext().getText(messageId));
+    }
+
+    /**
+     * @param message the new text for the message
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setMessage(CharSequence message) {
+      this.message = message;
+      messageSet = true;
+      return this;
+    }
+
+    /**
+     * @param view the View to display in the dialog, null if none
+     * @return This Editor object to allow for chaining of calls to set methods
+     */
+    public Editor setView(View view) {
+      this.view = view;
+      viewSet = true;
+      return this;
+    }
+
+    /**
+     * @param id Which button to set the text for, can be one of
+     * {@link DialogInterface#BUTTON_POSITIVE},
+     * {@link DialogInterface#BUTTON_NEGATIVE}, or
+     * {@link DialogInterface#BUTTON_NEUTRAL}
+     * @param buttonText The text to display for the button.
+     * @return This Editor object to allow for chaining of calls to set methods
+     * @see MaterialDialog#setButton(int, CharSequence)
+     */
+    public Editor setButton(int id, CharSequence buttonText) {
+      return setButton(id, buttonText, null, null);
+    }
+
+    /**
+     * @param id Which button to set the text for
+     * @param buttonText The text to display for the button.
+     * @param listener Click listener, can be null
+     * @return This Editor object to allow for chaining of calls to set methods
+     * @see MaterialDialog#setButton(int, CharSequence, OnClickListener)
+     */
+    public Editor setButton(int id, CharSequence buttonText, OnClickListener listener) {
+      return setButton(id, buttonText, listener, null);
+    }
+
+    /**
+     * @param id Which button to set the text for
+     * @param buttonText The text to display for the button.
+     * @param delegate Click delegate, can be null
+     * @return This Editor object to allow for chaining of calls to set methods
+     * @see MaterialDialog#setButton(int, CharSequence, OnClickDelegate)
+     */
+    public Editor setButton(int id, CharSequence buttonText, OnClickDelegate delegate) {
+      return setButton(id, buttonText, null, delegate);
+    }
+
+    private Editor setButton(int id, CharSequence buttonText, OnClickListener listener,
+        OnClickDelegate delegate) {
+      if (id != DialogInterface.BUTTON_POSITIVE && id != DialogInterface.BUTTON_NEGATIVE
+          && id != DialogInterface.BUTTON_NEUTRAL) {
+        throw new IllegalArgumentException("ID needs to be DialogInterface.BUTTON_*");
+      }
+      buttons[-1 - id] = new ButtonEdit(id, buttonText, listener, delegate);
+      return this;
+    }
+
+    /**
+     * Apply the changes to the dialog, skipping those that leave its content as it is
+     */
+    public void apply() {
+      MaterialDialog.this.apply(this);
+    }
+
+    private final class ButtonEdit {
+      final int id;
+      final CharSequence text;
+      final OnClickListener listener;
+      final OnClickDelegate delegate;
+
+      ButtonEdit(int id, CharSequence text, OnClickListener listener, OnClickDelegate delegate) {
+        this.id = id;
+        this.text = text;
+        this.listener = listener;
+        this.delegate = delegate;
+      }
+    }
+  }
+
   /**
    * Builder for {@link com.prolificinteractive.materialdialog.MaterialDialog}
    */
@@ -338,12 +1785,23 @@ public class MaterialDialog extends Dialog {
 
     private final Context mContext;
     private int mTheme = 0;
+    private boolean overlay = false;
     private boolean cancelable = true;
+    private boolean searchable = false;
     private Drawable icon;
     private CharSequence title;
     private CharSequence message;
+    private int messageWidth = 0;
+    private PrecomputedMessage precomputedMessage;
+    private MessageStreamAdapter.ParagraphReader messageStream;
     private View view;
 
+    // Resources loaded when the dialog is created, see loadResources()
+    private int iconId = 0;
+    private int viewLayoutId = 0;
+    private int itemsId = 0;
+    private int itemsLayoutId = 0;
+
     private CharSequence positiveText;
     private OnClickListener positiveListener;
     private OnClickDelegate positiveDelegate;
@@ -367,6 +1825,7 @@ public class MaterialDialog extends Dialog {
     private OnMultiChoiceClickListener listMultListener;
 
     private boolean[] checkedItems = null;
+    private CheckedItems checkedItemSet = null;
     private int checkedItem = -1;
 
     /**
@@ -401,7 +1860,7 @@ public class MaterialDialog extends Dialog {
      * @return A Context for built Dialogs
      */
     public Context getContext() {
-      return new ContextThemeWrapper(mContext, mTheme);
+      return ThemeCache.getThemedContext(mContext, mTheme);
     }
 
     /**
@@ -411,16 +1870,249 @@ public class MaterialDialog extends Dialog {
      * This allows the user to do any extra processing before displaying the dialog.
      * Use {@linkplain #show()} if you don't have any other processing
      * to do and want this to be created and displayed.
+     * <p/>
+     * If the {@link com.prolificinteractive.materialdialog.MaterialDialogViewPool} holds a view
+     * tree for this theme, the dialog uses it instead of inflating its layout.
+     * The dialog keeps the tree, so it can be shown again after it is dismissed.
      */
     public MaterialDialog create() {
-      final MaterialDialog dialog = new MaterialDialog(mContext, mTheme);
+      return create(MaterialDialogViewPool.getInstance().acquire(mTheme));
+    }
+
+    /**
+     * Inflate the dialog's views on a background thread, then create the dialog on the main
+     * thread with the arguments supplied to this builder.
+     *
+     * @param listener notified on the main thread with the created dialog
+     * @see #createAsync(java.util.concurrent.Executor, OnPreparedListener)
+     */
+    public void prepareAsync(OnPreparedListener listener) {
+      createAsync(DialogThreads.backgroundExecutor(), listener);
+    }
+
+    /**
+     * Load the resources given by id to this builder (icon, custom view layout and item arrays)
+     * and inflate the dialog's views on the given executor, then create the dialog on the main
+     * thread. Only attaching the loaded contents to the dialog is left to the main thread.
+     * <p/>
+     * Anything that fails to load on the executor is loaded again on the main thread.
+     * The builder must not be modified until the listener is called.
+     *
+     * @param executor runs the loading, it must not be the main thread
+     * @param listener notified on the main thread with the created dialog
+     */
+    public void createAsync(Executor executor, final OnPreparedListener listener) {
+      final Context appContext = mContext.getApplicationContext();
+      executor.execute(new Runnable() {
+        @Override public void run() {
+          View root = MaterialDialogViewPool.getInstance().acquire(mTheme);
+          try {
+            loadResources();
+            if (root == null) {
+              root = MaterialDialogViewPool.inflate(appContext, mTheme);
+            }
+            inflatePanels(root);
+          } catch (RuntimeException e) {
+            Log.w(TAG, "Could not load the dialog in the background, retrying on the main thread",
+                e);
+          }
+          final View content = root;
+          DialogThreads.main().post(new Runnable() {
+            @Override public void run() {
+              listener.onPrepared(create(content));
+            }
+          });
+        }
+      });
+    }
+
+    /**
+     * @param content mdb__dialog tree to build the dialog on, or null to inflate a new one
+     */
+    private MaterialDialog create(View content) {
+      if (overlay && !(mContext instanceof Activity)) {
+        throw new IllegalStateException("Overlay dialogs need to be built with an Activity");
+      }
+      loadResources();
+      MaterialDialog dialog = new MaterialDialog(mContext, mTheme, content,
+          overlay ? (Activity) mContext : null);
+      bind(dialog);
+      return dialog;
+    }
+
+    /**
+     * Replace the contents of an existing dialog with the arguments supplied to this builder,
+     * so a dialog can be reused instead of creating a new one.
+     * Title, icon, message, list, custom view, buttons and listeners are all reset.
+     * The dialog keeps the theme it was created with.
+     *
+     * <p/>
+     * A dialog whose view tree went back to the
+     * {@link com.prolificinteractive.materialdialog.MaterialDialogViewPool} when dismissed, such
+     * as one shown by {@link #show()}, takes a new tree from the pool, or inflates one.
+     *
+     * @param dialog a dialog that isn't showing
+     * @return the dialog, to allow for chaining
+     * @throws IllegalStateException if the dialog is showing
+     */
+    public MaterialDialog applyTo(MaterialDialog dialog) {
+      if (dialog.isShowing()) {
+        throw new IllegalStateException("Dialog needs to be dismissed before it is rebound");
+      }
+      if (dialog.recycled) {
+        dialog.reattachContent();
+      }
+      dialog.resetContent();
+      bind(dialog);
+      return dialog;
+    }
+
+    /**
+     * Turn the resource ids given to this builder into the drawable, view and adapter they
+     * stand for. Anything already loaded is kept. This is safe to call on a background thread.
+     */
+    private void loadResources() {
+      if (messageWidth > 0 && precomputedMessage == null) {
+        precomputedMessage = PrecomputedMessage.create(mContext, mTheme, message, messageWidth);
+      }
+      if (iconId != 0 && icon == null) {
+        final MaterialDialogIconCache icons = MaterialDialogIconCache.getInstance();
+        // On the main thread the dialog decodes a large icon in the background itself
+        icon = Looper.myLooper() == Looper.getMainLooper()
+            ? icons.loadIfSmall(mContext.getResources(), iconId, mTheme)
+            : icons.load(mContext.getResources(), iconId, mTheme);
+      }
+      if (viewLayoutId != 0 && view == null) {
+        view = LayoutInflater.from(getContext()).inflate(viewLayoutId, null);
+      }
+      if (itemsId != 0 && listAdapter == null) {
+        listAdapter = new ItemAdapter(mContext.getResources().getTextArray(itemsId),
+            itemsLayoutId);
+      }
+    }
+
+    /**
+     * Copy this builder for another Context, such as an Activity recreated on a configuration
+     * change. Adapters, item arrays, icons and precomputed messages already loaded are shared
+     * with the copy, custom views inflated from a layout are inflated again. Listeners and
+     * Views set directly are shared as they are, see {@link MaterialDialogFragment.Host}.
+     */
+    Builder copyFor(Context context) {
+      final Builder copy = new Builder(context, mTheme);
+      copy.overlay = overlay;
+      copy.cancelable = cancelable;
+      copy.searchable = searchable;
+      copy.icon = icon;
+      copy.title = title;
+      copy.message = message;
+      copy.messageWidth = messageWidth;
+      copy.precomputedMessage = precomputedMessage;
+      copy.messageStream = messageStream;
+      copy.view = viewLayoutId != 0 ? null : view;
+      copy.iconId = iconId;
+      copy.viewLayoutId = viewLayoutId;
+      copy.itemsId = itemsId;
+      copy.itemsLayoutId = itemsLayoutId;
+      copy.positiveText = positiveText;
+      copy.positiveListener = positiveListener;
+      copy.positiveDelegate = positiveDelegate;
+      copy.negativeText = negativeText;
+      copy.negativeListener = negativeListener;
+      copy.negativeDelegate = negativeDelegate;
+      copy.neutralText = neutralText;
+      copy.neutralListener = neutralListener;
+      copy.neutralDelegate = neutralDelegate;
+      copy.onCancelListener = onCancelListener;
+      copy.onDismissListener = onDismissListener;
+      copy.onKeyListener = onKeyListener;
+      copy.listType = listType;
+      copy.listListener = listListener;
+      copy.listDelegate = listDelegate;
+      copy.listAdapter = listAdapter;
+      copy.listMultListener = listMultListener;
+      copy.checkedItems = checkedItems;
+      copy.checkedItemSet = checkedItemSet;
+      copy.checkedItem = checkedItem;
+      return copy;
+    }
+
+    boolean isCancelable() {
+      return cancelable;
+    }
+
+    OnCancelListener getOnCancelListener() {
+      return onCancelListener;
+    }
+
+    OnDismissListener getOnDismissListener() {
+      return onDismissListener;
+    }
+
+    /**
+     * Inflate the panels the dialog will show, so creating it doesn't have to
+     *
+     * @param root mdb__dialog tree that isn't attached to a window
+     */
+    private void inflatePanels(View root) {
+      if (icon != null || iconId != 0 || title != null) {
+        inflateStub(root, R.id.mdb__topPanelStub);
+      }
+      if (message != null || precomputedMessage != null) {
+        inflateStub(root, R.id.mdb__scrollStub);
+      }
+      if (listAdapter != null || messageStream != null) {
+        inflateStub(root, R.id.mdb__listStub);
+        if (searchable) {
+          inflateStub(root, R.id.mdb__searchStub);
+        }
+      }
+      if (view != null) {
+        inflateStub(root, R.id.mdb__customPanelStub);
+      }
+      if (positiveText != null || negativeText != null || neutralText != null) {
+        inflateStub(root, R.id.mdb__buttonPanelStub);
+      }
+    }
+
+    private static void inflateStub(View root, int stubId) {
+      // Gone once inflated, pooled trees keep the panels of the dialogs they were used by
+      if (root.findViewById(stubId) != null) {
+        inflatePanel(root, stubId);
+      }
+    }
+
+    /**
+     * Use an array resource for the list, it is loaded when the dialog is created
+     */
+    private Builder setItemsResource(int itemsId, int itemsLayoutId) {
+      this.itemsId = itemsId;
+      this.itemsLayoutId = itemsLayoutId;
+      return this;
+    }
+
+    private void bind(MaterialDialog dialog) {
+      final Tracer tracer = MaterialDialog.tracer;
+      if (tracer == NoOpTracer.INSTANCE) {
+        bindArguments(dialog);
+      } else {
+        final long start = System.nanoTime();
+        bindArguments(dialog);
+        tracer.onBound(dialog, System.nanoTime() - start);
+      }
+    }
+
+    private void bindArguments(final MaterialDialog dialog) {
       if (icon != null) {
         dialog.setIcon(icon);
+      } else if (iconId != 0) {
+        dialog.setIcon(iconId);
       }
       if (title != null) {
         dialog.setTitle(title);
       }
-      if (message != null) {
+      if (precomputedMessage != null) {
+        dialog.setMessage(precomputedMessage);
+      } else if (message != null) {
         dialog.setMessage(message);
       }
       if (view != null) {
@@ -429,26 +2121,54 @@ public class MaterialDialog extends Dialog {
 
       if (listAdapter != null) {
         final ListView listView = dialog.getListView();
-        listView.setAdapter(listAdapter);
-        if (listType == ListType.SINGLE) {
-          listView.setChoiceMode(AbsListView.CHOICE_MODE_SINGLE);
-          listView.setItemChecked(checkedItem, true);
-        } else if (listType == ListType.MULTI) {
-          listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
-          if (checkedItems != null) {
-            for (int i = 0; i < checkedItems.length; i++) {
-              listView.setItemChecked(i, checkedItems[i]);
+        if (listAdapter instanceof RecyclingAdapter) {
+          ((RecyclingAdapter<?>) listAdapter).prefetch(listView);
+        }
+        final CheckedItems checkedSet = listType == ListType.MULTI ? checkedItemSet : null;
+        if (checkedSet != null) {
+          // Rows are checked by the adapter, the ListView doesn't track choices at all
+          dialog.checkedItems = checkedSet;
+          listView.setAdapter(new CheckedItemsAdapter(listAdapter, checkedSet));
+          listView.setChoiceMode(AbsListView.CHOICE_MODE_NONE);
+        } else {
+          listView.setAdapter(listAdapter);
+          if (listType == ListType.SINGLE) {
+            listView.setChoiceMode(AbsListView.CHOICE_MODE_SINGLE);
+            listView.setItemChecked(checkedItem, true);
+          } else if (listType == ListType.MULTI) {
+            listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+            if (checkedItems != null) {
+              for (int i = 0; i < checkedItems.length; i++) {
+                if (checkedItems[i]) {
+                  listView.setItemChecked(i, true);
+                }
+              }
             }
+          } else {
+            listView.setChoiceMode(AbsListView.CHOICE_MODE_NONE);
           }
-        } else {
-          listView.setChoiceMode(AbsListView.CHOICE_MODE_NONE);
         }
-        if (listType == ListType.MULTI) {
+        if (checkedSet != null) {
+          listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override public void onItemClick(AdapterView<?> parent, View view, int position,
+                long id) {
+              final int index = ItemAdapter.indexOf(listView.getAdapter(), position);
+              boolean isChecked = checkedSet.toggle(index);
+              if (view instanceof Checkable) {
+                ((Checkable) view).setChecked(isChecked);
+              }
+              if (listMultListener != null) {
+                listMultListener.onClick(dialog, index, isChecked);
+              }
+            }
+          });
+        } else if (listType == ListType.MULTI) {
           listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override public void onItemClick(AdapterView<?> parent, View view, int position,
                 long id) {
               if (listMultListener != null) {
-                listMultListener.onClick(dialog, position, listView.isItemChecked(position));
+                final int index = ItemAdapter.indexOf(listView.getAdapter(), position);
+                listMultListener.onClick(dialog, index, listView.isItemChecked(position));
               }
             }
           });
@@ -458,9 +2178,11 @@ public class MaterialDialog extends Dialog {
                 long id) {
               boolean handled = listType == ListType.SINGLE;
               if (listListener != null) {
-                listListener.onClick(dialog, position);
+                listListener.onClick(dialog,
+                    ItemAdapter.indexOf(listView.getAdapter(), position));
               } else if (listDelegate != null) {
-                handled = listDelegate.onClick(dialog, position);
+                handled = listDelegate.onClick(dialog,
+                    ItemAdapter.indexOf(listView.getAdapter(), position));
               }
               if (!handled) {
                 dialog.dismiss();
@@ -469,7 +2191,10 @@ public class MaterialDialog extends Dialog {
           });
         }
       }
-      dialog.setContentPanelsVisibility();
+      if (messageStream != null) {
+        dialog.setMessageStream(messageStream);
+      }
+      dialog.setSearchable(searchable);
 
       if (positiveText != null) {
         if (positiveDelegate != null) {
@@ -503,16 +2228,20 @@ public class MaterialDialog extends Dialog {
       dialog.setOnDismissListener(onDismissListener);
       dialog.setOnKeyListener(onKeyListener);
       dialog.setCancelable(cancelable);
-
-      return dialog;
     }
 
     /**
      * Creates a {@link com.prolificinteractive.materialdialog.MaterialDialog} with the
-     * arguments supplied to this builder and {@linkplain #show()}'s the dialog
+     * arguments supplied to this builder and {@linkplain #show()}'s the dialog.
+     * <p/>
+     * The dialog gives its view tree up when dismissed, back to the
+     * {@link com.prolificinteractive.materialdialog.MaterialDialogViewPool} if it came from it.
+     * It can't be shown or changed afterwards, unless rebound with {@link #applyTo}.
+     * Use {@link #create()} to keep a dialog around.
      */
     public MaterialDialog show() {
       MaterialDialog dialog = create();
+      dialog.setRecycleOnDismiss();
       dialog.show();
       return dialog;
     }
@@ -552,6 +2281,62 @@ public class MaterialDialog extends Dialog {
      */
     public Builder setMessage(CharSequence message) {
       this.message = message;
+      this.messageWidth = 0;
+      this.precomputedMessage = null;
+      this.messageStream = null;
+      return this;
+    }
+
+    /**
+     * Set a very long message to show as the dialog's content, read as the user scrolls.
+     * The reader can only be used by one dialog.
+     *
+     * @return This Builder object to allow for chaining of calls to set methods
+     * @see MaterialDialog#setMessageStream(java.io.Reader)
+     */
+    public Builder setMessageStream(Reader reader) {
+      setMessage((CharSequence) null);
+      this.messageStream = new MessageStreamAdapter.LineReader(reader);
+      return this;
+    }
+
+    /**
+     * Set a very long message to show as the dialog's content, read as the user scrolls.
+     * The iterator can only be used by one dialog.
+     *
+     * @return This Builder object to allow for chaining of calls to set methods
+     * @see MaterialDialog#setMessageStream(java.util.Iterator)
+     */
+    public Builder setMessageStream(Iterator<? extends CharSequence> chunks) {
+      setMessage((CharSequence) null);
+      this.messageStream = new MessageStreamAdapter.ChunkReader(chunks);
+      return this;
+    }
+
+    /**
+     * Set a long message to show as the dialog's content.
+     * The message is laid out for the given width when the dialog is created,
+     * which {@link #createAsync(java.util.concurrent.Executor, OnPreparedListener)} does
+     * off the main thread.
+     *
+     * @param message the message
+     * @param width the width available to the text, from {@link MaterialDialog#getMessageWidth()}
+     * @return This Builder object to allow for chaining of calls to set methods
+     */
+    public Builder setMessage(CharSequence message, int width) {
+      setMessage(message);
+      this.messageWidth = message != null ? width : 0;
+      return this;
+    }
+
+    /**
+     * Set a message that has already been laid out to show as the dialog's content
+     *
+     * @return This Builder object to allow for chaining of calls to set methods
+     */
+    public Builder setMessage(PrecomputedMessage message) {
+      setMessage(message != null ? message.getText() : null);
+      this.precomputedMessage = message;
       return this;
     }
 
@@ -561,7 +2346,9 @@ public class MaterialDialog extends Dialog {
      * @return This Builder object to allow for chaining of calls to set methods
      */
     public Builder setIcon(int iconId) {
-      return setIcon(mContext.getResources().getDrawable(iconId));
+      this.iconId = iconId;
+      this.icon = null;
+      return this;
     }
 
     /**
@@ -571,6 +2358,7 @@ public class MaterialDialog extends Dialog {
      */
     public Builder setIcon(Drawable icon) {
       this.icon = icon;
+      this.iconId = 0;
       return this;
     }
 
@@ -582,6 +2370,7 @@ public class MaterialDialog extends Dialog {
      */
     public Builder setView(View view) {
       this.view = view;
+      this.viewLayoutId = 0;
       return this;
     }
 
@@ -592,7 +2381,8 @@ public class MaterialDialog extends Dialog {
      * @return This Builder object to allow for chaining of calls to set methods
      */
     public void setView(int layoutId) {
-      setView(LayoutInflater.from(getContext()).inflate(layoutId, null));
+      this.viewLayoutId = layoutId;
+      this.view = null;
     }
 
     /**
@@ -802,6 +2592,36 @@ public class MaterialDialog extends Dialog {
       return this;
     }
 
+    /**
+     * Show a search field above a list of items given as an array of labels or resource.
+     * Labels are filtered on a background thread as the user types.
+     * Listeners are given the index of the item in the array, not its position in the
+     * filtered list.
+     *
+     * @return This Builder object to allow for chaining of calls to set methods
+     * @see MaterialDialog#setSearchable(boolean)
+     */
+    public Builder setSearchable(boolean searchable) {
+      this.searchable = searchable;
+      return this;
+    }
+
+    /**
+     * Show the dialog over the content of the Activity this builder was created with, instead of
+     * in a window of its own. Showing and dismissing the dialog then doesn't add or remove a
+     * window, which makes short-lived confirmations cheaper. The dialog dims the Activity,
+     * cancels on back and calls its listeners like a dialog in its own window.
+     * <p/>
+     * The dialog must be dismissed before its Activity is destroyed, and only on the main
+     * thread.
+     *
+     * @return This Builder object to allow for chaining of calls to set methods
+     */
+    public Builder setOverlay(boolean overlay) {
+      this.overlay = overlay;
+      return this;
+    }
+
     /**
      * Set the dialog as cancelable, or not. Default is cancelable
      *
@@ -820,7 +2640,7 @@ public class MaterialDialog extends Dialog {
      */
     public Builder setItems(CharSequence[] items, OnClickListener listener) {
       return setAdapter(
-          new ArrayAdapter<CharSequence>(mContext, android.R.layout.simple_list_item_1, items),
+          new ItemAdapter(items, R.layout.mdb__list_item),
           listener
       );
     }
@@ -833,7 +2653,26 @@ public class MaterialDialog extends Dialog {
      * @return This Builder object to allow for chaining of calls to set methods
      */
     public Builder setItems(int itemsId, OnClickListener listener) {
-      return setItems(mContext.getResources().getTextArray(itemsId), listener);
+      setAdapter((ListAdapter) null, listener);
+      return setItemsResource(itemsId, R.layout.mdb__list_item);
+    }
+
+    /**
+     * Set a list of items, which are supplied by the given {@link ItemSource},
+     * to be displayed in the dialog as the content,
+     * you will be notified of the selected item via the supplied listener.
+     * Labels are only requested for the rows being displayed.
+     *
+     * @param source the {@link ItemSource} to supply items
+     * @param listener The listener that will be called when an item is clicked
+     * @return This Builder object to allow for chaining of calls to set methods
+     * @see PagedItemSource
+     */
+    public Builder setItems(ItemSource source, OnClickListener listener) {
+      return setAdapter(
+          new ItemSourceAdapter(source, R.layout.mdb__list_item),
+          listener
+      );
     }
 
     /**
@@ -848,6 +2687,7 @@ public class MaterialDialog extends Dialog {
     public Builder setAdapter(ListAdapter adapter, OnClickListener listener) {
       this.listType = ListType.ITEMS;
       this.listAdapter = adapter;
+      this.itemsId = 0;
       this.listListener = listener;
       return this;
     }
@@ -861,7 +2701,7 @@ public class MaterialDialog extends Dialog {
      */
     public Builder setItems(CharSequence[] items, OnClickDelegate delegate) {
       return setAdapter(
-          new ArrayAdapter<CharSequence>(mContext, android.R.layout.simple_list_item_1, items),
+          new ItemAdapter(items, R.layout.mdb__list_item),
           delegate
       );
     }
@@ -873,7 +2713,26 @@ public class MaterialDialog extends Dialog {
      * @return This Builder object to allow for chaining of calls to set methods
      */
     public Builder setItems(int itemsId, OnClickDelegate delegate) {
-      return setItems(mContext.getResources().getTextArray(itemsId), delegate);
+      setAdapter((ListAdapter) null, delegate);
+      return setItemsResource(itemsId, R.layout.mdb__list_item);
+    }
+
+    /**
+     * Set a list of items, which are supplied by the given {@link ItemSource},
+     * to be displayed in the dialog as the content,
+     * you will be notified of the selected item via the supplied delegate.
+     * Labels are only requested for the rows being displayed.
+     *
+     * @param source the {@link ItemSource} to supply items
+     * @param delegate The delegate that will be called when an item is clicked
+     * @return This Builder object to allow for chaining of calls to set methods
+     * @see PagedItemSource
+     */
+    public Builder setItems(ItemSource source, OnClickDelegate delegate) {
+      return setAdapter(
+          new ItemSourceAdapter(source, R.layout.mdb__list_item),
+          delegate
+      );
     }
 
     /**
@@ -888,6 +2747,7 @@ public class MaterialDialog extends Dialog {
     public Builder setAdapter(ListAdapter adapter, OnClickDelegate delegate) {
       this.listType = ListType.ITEMS;
       this.listAdapter = adapter;
+      this.itemsId = 0;
       this.listDelegate = delegate;
       return this;
     }
@@ -906,8 +2766,7 @@ public class MaterialDialog extends Dialog {
     public Builder setSingleChoiceItems(CharSequence[] items, int checkedItem,
         OnClickDelegate delegate) {
       return setSingleChoiceItems(
-          new ArrayAdapter<CharSequence>(mContext, android.R.layout.simple_list_item_single_choice,
-              items),
+          new ItemAdapter(items, R.layout.mdb__list_item_single_choice),
           checkedItem,
           delegate
       );
@@ -925,8 +2784,8 @@ public class MaterialDialog extends Dialog {
      * @return This Builder object to allow for chaining of calls to set methods
      */
     public Builder setSingleChoiceItems(int itemsId, int checkedItem, OnClickDelegate delegate) {
-      return setSingleChoiceItems(mContext.getResources().getTextArray(itemsId), checkedItem,
-          delegate);
+      setSingleChoiceItems((ListAdapter) null, checkedItem, delegate);
+      return setItemsResource(itemsId, R.layout.mdb__list_item_single_choice);
     }
 
     /**
@@ -944,6 +2803,7 @@ public class MaterialDialog extends Dialog {
         OnClickDelegate delegate) {
       this.listType = ListType.SINGLE;
       this.listAdapter = adapter;
+      this.itemsId = 0;
       this.listDelegate = delegate;
       this.checkedItem = checkedItem;
       return this;
@@ -963,8 +2823,7 @@ public class MaterialDialog extends Dialog {
     public Builder setSingleChoiceItems(CharSequence[] items, int checkedItem,
         OnClickListener listener) {
       return setSingleChoiceItems(
-          new ArrayAdapter<CharSequence>(mContext, android.R.layout.simple_list_item_single_choice,
-              items),
+          new ItemAdapter(items, R.layout.mdb__list_item_single_choice),
           checkedItem,
           listener
       );
@@ -982,8 +2841,8 @@ public class MaterialDialog extends Dialog {
      * @return This Builder object to allow for chaining of calls to set methods
      */
     public Builder setSingleChoiceItems(int itemsId, int checkedItem, OnClickListener listener) {
-      return setSingleChoiceItems(mContext.getResources().getTextArray(itemsId), checkedItem,
-          listener);
+      setSingleChoiceItems((ListAdapter) null, checkedItem, listener);
+      return setItemsResource(itemsId, R.layout.mdb__list_item_single_choice);
     }
 
     /**
@@ -1001,6 +2860,7 @@ public class MaterialDialog extends Dialog {
         OnClickListener listener) {
       this.listType = ListType.SINGLE;
       this.listAdapter = adapter;
+      this.itemsId = 0;
       this.listListener = listener;
       this.checkedItem = checkedItem;
       return this;
@@ -1025,8 +2885,7 @@ public class MaterialDialog extends Dialog {
     public Builder setMultiChoiceItems(CharSequence[] items, boolean[] checkedItems,
         OnMultiChoiceClickListener listener) {
       return setMultiChoiceItems(
-          new ArrayAdapter<CharSequence>(mContext,
-              android.R.layout.simple_list_item_multiple_choice, items),
+          new ItemAdapter(items, R.layout.mdb__list_item_multi_choice),
           checkedItems,
           listener
       );
@@ -1050,8 +2909,8 @@ public class MaterialDialog extends Dialog {
      */
     public Builder setMultiChoiceItems(int itemsId, boolean[] checkedItems,
         OnMultiChoiceClickListener listener) {
-      return setMultiChoiceItems(mContext.getResources().getTextArray(itemsId), checkedItems,
-          listener);
+      setMultiChoiceItems((ListAdapter) null, checkedItems, listener);
+      return setItemsResource(itemsId, R.layout.mdb__list_item_multi_choice);
     }
 
     /**
@@ -1074,11 +2933,28 @@ public class MaterialDialog extends Dialog {
         OnMultiChoiceClickListener listener) {
       this.listType = ListType.MULTI;
       this.listAdapter = adapter;
+      this.itemsId = 0;
       this.listMultListener = listener;
       this.checkedItems = checkedItems;
       return this;
     }
 
+    /**
+     * Keep the checked items of a multi choice list in a {@link CheckedItems}
+     * instead of the ListView's checked states.
+     * Only the checked items are visited when the dialog is created, and the dialog
+     * updates this set as items are clicked.
+     * When set, this replaces the checkedItems array given to setMultiChoiceItems.
+     *
+     * @param checkedItems the checked items, or null to use the ListView's checked states
+     * @return This Builder object to allow for chaining of calls to set methods
+     * @see MaterialDialog#getCheckedItems()
+     */
+    public Builder setCheckedItems(CheckedItems checkedItems) {
+      this.checkedItemSet = checkedItems;
+      return this;
+    }
+
     /**
      * Type of list selection method to implement
      */
@@ -0,0 +1,111 @@
+package com.prolificinteractive.materialdialog;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Dialog;
+import android.app.DialogFragment;
+import android.content.DialogInterface;
+import android.os.Build;
+import android.os.Bundle;
+
+/**
+ * Retained DialogFragment showing a {@link MaterialDialog}, so the dialog survives
+ * configuration changes.
+ * <p/>
+ * The fragment keeps its {@link MaterialDialog.Builder} across a rotation and builds the new
+ * dialog from it: list adapters, item arrays loaded from resources, icons and precomputed
+ * messages are reused instead of loaded again, a {@link CheckedItems} keeps its checked items,
+ * and the dialog restores its scroll positions and search query. Custom views inflated from a
+ * layout id are inflated again for the new Activity, while a View given to the Builder is moved
+ * to the new dialog and keeps the Context it was created with.
+ * <p/>
+ * Listeners and Views given to the Builder are kept too, so they must not capture the Activity
+ * that created them, or it leaks with every rotation. Implement {@link Host} in the Activity to
+ * give the Builder fresh ones each time the dialog is built for it instead.
+ * <p/>
+ * Listeners can't be saved, so if the process is killed while the dialog is showing, the
+ * fragment removes itself instead of showing a dialog that doesn't do anything.
+ * A message stream is closed with the first dialog and isn't shown again.
+ */
+@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+public class MaterialDialogFragment extends DialogFragment {
+
+  /**
+   * Implemented by an Activity showing a MaterialDialogFragment, to bind the dialog to it
+   */
+  public interface Host {
+
+    /**
+     * Called each time the dialog is built for this Activity, including the first one.
+     * Set the listeners and Views belonging to the Activity again here, such as with
+     * {@link MaterialDialog.Builder#setPositiveButton(CharSequence,
+     * android.content.DialogInterface.OnClickListener)} or
+     * {@link MaterialDialog.Builder#setView(android.view.View)}.
+     *
+     * @param tag the tag the fragment was shown with
+     * @param builder the copy of the Builder the dialog is about to be built from
+     */
+    void onBindDialog(String tag, MaterialDialog.Builder builder);
+  }
+
+  private MaterialDialog.Builder builder;
+
+  /**
+   * @param builder describes the dialog, it must not be modified afterwards
+   * @return a fragment to show with
+   * {@link #show(android.app.FragmentManager, String)}
+   */
+  public static MaterialDialogFragment newInstance(MaterialDialog.Builder builder) {
+    final MaterialDialogFragment fragment = new MaterialDialogFragment();
+    fragment.builder = builder;
+    fragment.setCancelable(builder.isCancelable());
+    return fragment;
+  }
+
+  @Override public void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+    setRetainInstance(true);
+    if (builder == null) {
+      // Restored after the process was killed, the listeners are gone
+      setShowsDialog(false);
+      dismissAllowingStateLoss();
+    }
+  }
+
+  @Override public Dialog onCreateDialog(Bundle savedInstanceState) {
+    // Copied so the builder doesn't hold on to the previous Activity
+    final Activity activity = getActivity();
+    builder = builder.copyFor(activity);
+    if (activity instanceof Host) {
+      ((Host) activity).onBindDialog(getTag(), builder);
+    }
+    final MaterialDialog dialog = builder.create();
+    // Each dialog is dropped with its Activity, a new one is built for the next
+    dialog.setRecycleOnDismiss();
+    return dialog;
+  }
+
+  @Override public void onCancel(DialogInterface dialog) {
+    super.onCancel(dialog);
+    if (builder != null && builder.getOnCancelListener() != null) {
+      builder.getOnCancelListener().onCancel(dialog);
+    }
+  }
+
+  @Override public void onDismiss(DialogInterface dialog) {
+    super.onDismiss(dialog);
+    if (builder != null && builder.getOnDismissListener() != null) {
+      builder.getOnDismissListener().onDismiss(dialog);
+    }
+  }
+
+  @Override public void onDestroyView() {
+    final Activity activity = getActivity();
+    if (getDialog() != null && activity != null && activity.isChangingConfigurations()) {
+      // The dialog is only torn down with the Activity, it isn't dismissed. Only the fragment's
+      // listener is skipped, the dialog still gives its views back to the pool.
+      ((MaterialDialog) getDialog()).suppressDismissListener();
+    }
+    super.onDestroyView();
+  }
+}
@@ -0,0 +1,240 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of dialog icons given by resource id, decoded down to
+ * the size of the icon slot, {@link R.dimen#mdb__dialog_icon_size}.
+ * <p/>
+ * Icons are keyed by resource id, screen density and dialog theme. Dialogs load icons no larger
+ * than the slot right away, so they show with the dialog. Larger icons missing from the cache
+ * are decoded on a background thread, so a large asset used as an icon doesn't decode a
+ * full size bitmap on the main thread. Icons that aren't bitmaps, such as shapes or
+ * state lists, are loaded as they are and not cached.
+ * <p/>
+ * Call {@link #onTrimMemory(int)} from your Application's {@code onTrimMemory()} to release
+ * cached icons when the system is low on memory.
+ */
+public final class MaterialDialogIconCache {
+
+  /**
+   * Default size of the cache, in bytes of bitmap data
+   */
+  public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+  private static final MaterialDialogIconCache INSTANCE = new MaterialDialogIconCache();
+
+  // In access order, the eldest entry is the least recently used
+  private final LinkedHashMap<Key, Bitmap> icons =
+      new LinkedHashMap<Key, Bitmap>(16, 0.75f, true);
+  private int maxSize = DEFAULT_MAX_SIZE;
+  private int size = 0;
+
+  private MaterialDialogIconCache() {
+  }
+
+  /**
+   * @return the shared cache instance
+   */
+  public static MaterialDialogIconCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Set the maximum number of bytes of bitmap data kept. Least recently used icons are dropped.
+   *
+   * @param maxSize the maximum size, 0 disables caching
+   */
+  public synchronized void setMaxSize(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxSize = maxSize;
+    trimToSize(maxSize);
+  }
+
+  /**
+   * @return the number of bytes of bitmap data kept
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Drop every cached icon
+   */
+  public synchronized void clear() {
+    icons.clear();
+    size = 0;
+  }
+
+  /**
+   * Release cached icons in response to memory pressure
+   *
+   * @param level the level passed to {@link android.content.ComponentCallbacks2#onTrimMemory(int)}
+   */
+  public void onTrimMemory(int level) {
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      clear();
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      synchronized (this) {
+        trimToSize(maxSize / 2);
+      }
+    }
+  }
+
+  /**
+   * @param theme the resolved dialog theme
+   * @return the cached icon, or null if it needs to be loaded
+   */
+  Drawable get(Resources resources, int iconId, int theme) {
+    final Bitmap bitmap;
+    synchronized (this) {
+      bitmap = icons.get(new Key(resources, iconId, theme));
+    }
+    return bitmap != null ? new BitmapDrawable(resources, bitmap) : null;
+  }
+
+  /**
+   * Load an icon right away if it is cheap to: cached, no larger than the icon slot, or not a
+   * bitmap. Only the bounds of larger bitmaps are decoded.
+   *
+   * @param theme the resolved dialog theme
+   * @return the icon, or null if it is a larger bitmap to load in the background
+   * @throws Resources.NotFoundException if the icon doesn't exist
+   */
+  Drawable loadIfSmall(Resources resources, int iconId, int theme) {
+    final Drawable cached = get(resources, iconId, theme);
+    if (cached != null) {
+      return cached;
+    }
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeResource(resources, iconId, options);
+    final int slotSize = resources.getDimensionPixelSize(R.dimen.mdb__dialog_icon_size);
+    if (options.outWidth > slotSize || options.outHeight > slotSize) {
+      return null;
+    }
+    return load(resources, iconId, theme);
+  }
+
+  /**
+   * Decode an icon down to the size of the icon slot and cache it.
+   * This is meant to be called on a background thread.
+   *
+   * @param theme the resolved dialog theme
+   * @return the icon
+   * @throws Resources.NotFoundException if the icon doesn't exist
+   */
+  Drawable load(Resources resources, int iconId, int theme) {
+    final Drawable cached = get(resources, iconId, theme);
+    if (cached != null) {
+      return cached;
+    }
+    final Bitmap bitmap = decode(resources, iconId,
+        resources.getDimensionPixelSize(R.dimen.mdb__dialog_icon_size));
+    if (bitmap == null) {
+      // Not a bitmap, the Resources cache its drawable themselves
+      return resources.getDrawable(iconId);
+    }
+    put(new Key(resources, iconId, theme), bitmap);
+    return new BitmapDrawable(resources, bitmap);
+  }
+
+  private synchronized void put(Key key, Bitmap bitmap) {
+    final int bytes = sizeOf(bitmap);
+    if (bytes > maxSize) {
+      return;
+    }
+    final Bitmap previous = icons.put(key, bitmap);
+    if (previous != null) {
+      size -= sizeOf(previous);
+    }
+    size += bytes;
+    trimToSize(maxSize);
+  }
+
+  private void trimToSize(int maxSize) {
+    final Iterator<Map.Entry<Key, Bitmap>> eldest = icons.entrySet().iterator();
+    while (size > maxSize && eldest.hasNext()) {
+      size -= sizeOf(eldest.next().getValue());
+      eldest.remove();
+    }
+  }
+
+  private static int sizeOf(Bitmap bitmap) {
+    return bitmap.getRowBytes() * bitmap.getHeight();
+  }
+
+  /**
+   * @return the bitmap, no larger than {@code slotSize} on either side, or null if the resource
+   * isn't a bitmap
+   */
+  private static Bitmap decode(Resources resources, int iconId, int slotSize) {
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeResource(resources, iconId, options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+
+    // Skip whole pixels while decoding, as long as the result still covers the slot
+    int sampleSize = 1;
+    while (options.outWidth / (sampleSize * 2) >= slotSize
+        && options.outHeight / (sampleSize * 2) >= slotSize) {
+      sampleSize *= 2;
+    }
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = sampleSize;
+    final Bitmap bitmap = BitmapFactory.decodeResource(resources, iconId, options);
+    if (bitmap == null || bitmap.getNinePatchChunk() != null) {
+      // Nine-patches need their drawable to stretch
+      return null;
+    }
+
+    final int largest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+    if (largest <= slotSize) {
+      return bitmap;
+    }
+    final float scale = (float) slotSize / largest;
+    final Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+        Math.max(1, Math.round(bitmap.getWidth() * scale)),
+        Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+    if (scaled != bitmap) {
+      bitmap.recycle();
+    }
+    return scaled;
+  }
+
+  private static final class Key {
+    final int iconId;
+    final int density;
+    final int theme;
+
+    Key(Resources resources, int iconId, int theme) {
+      this.iconId = iconId;
+      this.density = resources.getDisplayMetrics().densityDpi;
+      this.theme = theme;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return iconId == key.iconId && density == key.density && theme == key.theme;
+    }
+
+    @Override public int hashCode() {
+      return 31 * (31 * iconId + density) + theme;
+    }
+  }
+}
@@ -0,0 +1,353 @@
+package com.prolificinteractive.materialdialog;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Lays out the panels of a {@link com.prolificinteractive.materialdialog.MaterialDialog}
+ * with a single measure pass per child, instead of nested weighted LinearLayouts.
+ * <p/>
+ * In {@link #MODE_DIALOG} children are stacked vertically. Children marked with
+ * {@code layout_materialDialogFlexible} are measured last and share whatever height
+ * the others left, like {@code layout_weight} in a vertical LinearLayout.
+ * When its width isn't imposed, the layout wraps its widest child, up to
+ * {@link R.dimen#mdb__dialog_max_width}, and only children matching its width are measured again.
+ * <p/>
+ * In {@link #MODE_BUTTON_BAR} children are laid out horizontally and centered vertically.
+ * The first child sits at the start of the bar and the others are packed at the end,
+ * like the neutral, negative and positive buttons of an AlertDialog.
+ */
+public class MaterialDialogLayout extends ViewGroup {
+
+  /**
+   * Stack children vertically
+   */
+  public static final int MODE_DIALOG = 0;
+
+  /**
+   * Lay children out as a row of dialog buttons
+   */
+  public static final int MODE_BUTTON_BAR = 1;
+
+  private int mode;
+  private final int maxWidth;
+  private TraceListener traceListener;
+
+  public MaterialDialogLayout(Context context) {
+    this(context, null);
+  }
+
+  public MaterialDialogLayout(Context context, AttributeSet attrs) {
+    this(context, attrs, 0);
+  }
+
+  public MaterialDialogLayout(Context context, AttributeSet attrs, int defStyle) {
+    super(context, attrs, defStyle);
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.MaterialDialogLayout);
+    mode = a.getInt(R.styleable.MaterialDialogLayout_materialDialogLayoutMode, MODE_DIALOG);
+    a.recycle();
+    maxWidth = getResources().getDimensionPixelSize(R.dimen.mdb__dialog_max_width);
+  }
+
+  /**
+   * @return either {@link #MODE_DIALOG} or {@link #MODE_BUTTON_BAR}
+   */
+  public int getMode() {
+    return mode;
+  }
+
+  /**
+   * @param mode either {@link #MODE_DIALOG} or {@link #MODE_BUTTON_BAR}
+   */
+  public void setMode(int mode) {
+    if (mode != MODE_DIALOG && mode != MODE_BUTTON_BAR) {
+      throw new IllegalArgumentException("Mode needs to be MaterialDialogLayout.MODE_*");
+    }
+    if (this.mode != mode) {
+      this.mode = mode;
+      requestLayout();
+    }
+  }
+
+  /**
+   * @param listener notified of the time spent measuring and drawing, or null
+   */
+  void setTraceListener(TraceListener listener) {
+    this.traceListener = listener;
+  }
+
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    final TraceListener listener = traceListener;
+    final long start = listener == null ? 0 : System.nanoTime();
+    if (mode == MODE_BUTTON_BAR) {
+      measureButtonBar(widthMeasureSpec, heightMeasureSpec);
+    } else {
+      measureDialog(widthMeasureSpec, heightMeasureSpec);
+    }
+    if (listener != null) {
+      listener.onMeasured(System.nanoTime() - start);
+    }
+  }
+
+  @Override protected void dispatchDraw(Canvas canvas) {
+    final TraceListener listener = traceListener;
+    if (listener == null) {
+      super.dispatchDraw(canvas);
+      return;
+    }
+    final long start = System.nanoTime();
+    super.dispatchDraw(canvas);
+    listener.onDrawn(System.nanoTime() - start);
+  }
+
+  private void measureDialog(int widthMeasureSpec, int heightMeasureSpec) {
+    final int count = getChildCount();
+    final boolean exact = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY;
+    final int widthLimit = resolveWidthLimit(widthMeasureSpec);
+    // Under an exact width every child is measured once at its final width
+    final int childWidthSpec = MeasureSpec.makeMeasureSpec(widthLimit,
+        exact ? MeasureSpec.EXACTLY : MeasureSpec.AT_MOST);
+    int usedHeight = getPaddingTop() + getPaddingBottom();
+    int wantedWidth = 0;
+
+    // Fixed children first, flexible ones get what is left
+    for (int pass = 0; pass < 2; pass++) {
+      final boolean flexiblePass = pass == 1;
+      for (int i = 0; i < count; i++) {
+        final View child = getChildAt(i);
+        if (child.getVisibility() == GONE) {
+          continue;
+        }
+        final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+        if (lp.flexible != flexiblePass) {
+          continue;
+        }
+        measureChildWithMargins(child, childWidthSpec, 0, heightMeasureSpec, usedHeight);
+        usedHeight += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+        wantedWidth = Math.max(wantedWidth,
+            child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+      }
+    }
+
+    int width = widthLimit;
+    if (!exact) {
+      // Wrap the widest child, like the window would have wrapped the old layout
+      width = Math.max(wantedWidth + getPaddingLeft() + getPaddingRight(),
+          getSuggestedMinimumWidth());
+      width = Math.min(width, widthLimit);
+      matchChildrenToWidth(width);
+    }
+    setMeasuredDimension(width, resolveSize(usedHeight, heightMeasureSpec));
+  }
+
+  /**
+   * @return the widest the dialog can be, the width it is given up to its maximum width
+   */
+  private int resolveWidthLimit(int widthMeasureSpec) {
+    final int size = MeasureSpec.getSize(widthMeasureSpec);
+    switch (MeasureSpec.getMode(widthMeasureSpec)) {
+      case MeasureSpec.EXACTLY:
+        return size;
+      case MeasureSpec.AT_MOST:
+        return Math.min(size, maxWidth);
+      default:
+        return maxWidth;
+    }
+  }
+
+  /**
+   * Measures again only the children matching the parent's width that didn't get it already,
+   * keeping the height they were given
+   */
+  private void matchChildrenToWidth(int width) {
+    final int childWidthSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+    for (int i = 0; i < getChildCount(); i++) {
+      final View child = getChildAt(i);
+      if (child.getVisibility() == GONE) {
+        continue;
+      }
+      final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      if (lp.width != LayoutParams.MATCH_PARENT) {
+        continue;
+      }
+      final int widthSpec = getChildMeasureSpec(childWidthSpec,
+          getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin, lp.width);
+      if (child.getMeasuredWidth() == MeasureSpec.getSize(widthSpec)) {
+        continue;
+      }
+      child.measure(widthSpec,
+          MeasureSpec.makeMeasureSpec(child.getMeasuredHeight(), MeasureSpec.EXACTLY));
+    }
+  }
+
+  private void measureButtonBar(int widthMeasureSpec, int heightMeasureSpec) {
+    final int count = getChildCount();
+    int usedWidth = getPaddingLeft() + getPaddingRight();
+    int maxHeight = 0;
+
+    for (int i = 0; i < count; i++) {
+      final View child = getChildAt(i);
+      if (child.getVisibility() == GONE) {
+        continue;
+      }
+      final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      measureChildWithMargins(child, widthMeasureSpec, usedWidth, heightMeasureSpec, 0);
+      usedWidth += child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
+      maxHeight = Math.max(maxHeight,
+          child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+    }
+
+    maxHeight += getPaddingTop() + getPaddingBottom();
+    setMeasuredDimension(
+        resolveSize(usedWidth, widthMeasureSpec),
+        resolveSize(maxHeight, heightMeasureSpec)
+    );
+  }
+
+  @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    if (mode == MODE_BUTTON_BAR) {
+      layoutButtonBar(r - l, b - t);
+    } else {
+      layoutDialog();
+    }
+  }
+
+  private void layoutDialog() {
+    final int left = getPaddingLeft();
+    int top = getPaddingTop();
+    for (int i = 0; i < getChildCount(); i++) {
+      final View child = getChildAt(i);
+      if (child.getVisibility() == GONE) {
+        continue;
+      }
+      final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      top += lp.topMargin;
+      final int childLeft = left + lp.leftMargin;
+      child.layout(childLeft, top,
+          childLeft + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+      top += child.getMeasuredHeight() + lp.bottomMargin;
+    }
+  }
+
+  private void layoutButtonBar(int width, int height) {
+    final boolean rtl = isLayoutRtl();
+    final int innerTop = getPaddingTop();
+    final int innerHeight = height - getPaddingTop() - getPaddingBottom();
+    final int count = getChildCount();
+    if (count == 0) {
+      return;
+    }
+
+    // The first child goes at the start
+    final View first = getChildAt(0);
+    if (first.getVisibility() != GONE) {
+      layoutButton(first, rtl ? width - getPaddingRight() : getPaddingLeft(),
+          innerTop, innerHeight, rtl);
+    }
+
+    // The others are packed against the end, last child outermost
+    int end = rtl ? getPaddingLeft() : width - getPaddingRight();
+    for (int i = count - 1; i > 0; i--) {
+      final View child = getChildAt(i);
+      if (child.getVisibility() != GONE) {
+        end = layoutButton(child, end, innerTop, innerHeight, !rtl);
+      }
+    }
+  }
+
+  /**
+   * Place a button next to an edge
+   *
+   * @param edge the edge the button is placed against
+   * @param towardsLeft true if the button extends to the left of the edge
+   * @return the new edge, on the other side of the button
+   */
+  private int layoutButton(View child, int edge, int innerTop, int innerHeight,
+      boolean towardsLeft) {
+    final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    final int childWidth = child.getMeasuredWidth();
+    final int childHeight = child.getMeasuredHeight();
+    final int childTop = innerTop + lp.topMargin
+        + (innerHeight - childHeight - lp.topMargin - lp.bottomMargin) / 2;
+    final int childLeft;
+    if (towardsLeft) {
+      childLeft = edge - lp.rightMargin - childWidth;
+      edge = childLeft - lp.leftMargin;
+    } else {
+      childLeft = edge + lp.leftMargin;
+      edge = childLeft + childWidth + lp.rightMargin;
+    }
+    child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+    return edge;
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+  private boolean isLayoutRtl() {
+    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+        && getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+  }
+
+  @Override public LayoutParams generateLayoutParams(AttributeSet attrs) {
+    return new LayoutParams(getContext(), attrs);
+  }
+
+  @Override protected LayoutParams generateDefaultLayoutParams() {
+    return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+  }
+
+  @Override protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+    return p instanceof MarginLayoutParams
+        ? new LayoutParams((MarginLayoutParams) p) : new LayoutParams(p);
+  }
+
+  @Override protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+    return p instanceof LayoutParams;
+  }
+
+  /**
+   * Receives the time spent in each measure and draw of the layout
+   */
+  static interface TraceListener {
+    void onMeasured(long nanos);
+
+    void onDrawn(long nanos);
+  }
+
+  /**
+   * Per-child layout information for {@link MaterialDialogLayout}
+   */
+  public static class LayoutParams extends MarginLayoutParams {
+
+    /**
+     * If true, the child is measured after the others and fills the height they left
+     */
+    public boolean flexible = false;
+
+    public LayoutParams(Context c, AttributeSet attrs) {
+      super(c, attrs);
+      TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.MaterialDialogLayout_Layout);
+      flexible = a.getBoolean(
+          R.styleable.MaterialDialogLayout_Layout_layout_materialDialogFlexible, false
+      );
+      a.recycle();
+    }
+
+    public LayoutParams(int width, int height) {
+      super(width, height);
+    }
+
+    public LayoutParams(ViewGroup.LayoutParams source) {
+      super(source);
+    }
+
+    public LayoutParams(MarginLayoutParams source) {
+      super(source);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+
+/**
+ * ListView used for the list content of a {@link MaterialDialog}.
+ * <p/>
+ * Its height is always bounded, by default by the height of the display, so measuring it only
+ * walks the rows that can fit on screen no matter how many items the adapter holds.
+ * If every row has the same height, {@link #setItemHeightHint(int)} lets it skip measuring
+ * rows entirely.
+ */
+public class MaterialDialogListView extends ListView {
+
+  private int maxHeight = 0;
+  private int itemHeightHint = 0;
+
+  public MaterialDialogListView(Context context) {
+    super(context);
+  }
+
+  public MaterialDialogListView(Context context, AttributeSet attrs) {
+    super(context, attrs);
+  }
+
+  public MaterialDialogListView(Context context, AttributeSet attrs, int defStyle) {
+    super(context, attrs, defStyle);
+  }
+
+  /**
+   * Set the maximum height of the list
+   *
+   * @param maxHeight the height in pixels, or 0 to use the height of the display
+   */
+  public void setMaxHeight(int maxHeight) {
+    this.maxHeight = maxHeight;
+    requestLayout();
+  }
+
+  /**
+   * Tell the list that every row has the same height. The list then computes its own height
+   * from the number of items and doesn't measure any row to do so.
+   *
+   * @param itemHeight the height of a row in pixels, or 0 if rows may have different heights
+   */
+  public void setItemHeightHint(int itemHeight) {
+    this.itemHeightHint = itemHeight;
+    requestLayout();
+  }
+
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    final int mode = MeasureSpec.getMode(heightMeasureSpec);
+    final int size = MeasureSpec.getSize(heightMeasureSpec);
+    final int cap = mode == MeasureSpec.UNSPECIFIED ? getMaxHeight()
+        : Math.min(size, getMaxHeight());
+
+    if (mode != MeasureSpec.EXACTLY && itemHeightHint > 0) {
+      // An exact height keeps ListView from measuring children
+      heightMeasureSpec = MeasureSpec.makeMeasureSpec(
+          Math.min(cap, getHintedHeight()), MeasureSpec.EXACTLY
+      );
+    } else if (mode == MeasureSpec.UNSPECIFIED || size > cap) {
+      heightMeasureSpec = MeasureSpec.makeMeasureSpec(
+          cap, mode == MeasureSpec.EXACTLY ? MeasureSpec.EXACTLY : MeasureSpec.AT_MOST
+      );
+    }
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+  }
+
+  private int getMaxHeight() {
+    return maxHeight > 0 ? maxHeight : getResources().getDisplayMetrics().heightPixels;
+  }
+
+  private int getHintedHeight() {
+    final ListAdapter adapter = getAdapter();
+    final int count = adapter == null ? 0 : adapter.getCount();
+    final int padding = getPaddingTop() + getPaddingBottom();
+    if (count == 0) {
+      return padding;
+    }
+    // Long multiplication, 100k rows of a few hundred pixels overflows an int
+    final long height = (long) count * itemHeightHint + (long) (count - 1) * getDividerHeight();
+    return (int) Math.min(Integer.MAX_VALUE - padding, height) + padding;
+  }
+}
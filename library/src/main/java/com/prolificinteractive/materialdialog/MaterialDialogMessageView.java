@@ -0,0 +1,95 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.widget.TextView;
+
+/**
+ * TextView used for the message of a {@link MaterialDialog}.
+ * <p/>
+ * It can display a {@link PrecomputedMessage}, in which case it measures and draws the
+ * message's layout instead of laying the text out itself. The text is then only exposed
+ * through {@link #getMessage()} and the content description.
+ */
+public class MaterialDialogMessageView extends TextView {
+
+  private PrecomputedMessage precomputed;
+
+  public MaterialDialogMessageView(Context context) {
+    super(context);
+  }
+
+  public MaterialDialogMessageView(Context context, AttributeSet attrs) {
+    super(context, attrs);
+  }
+
+  public MaterialDialogMessageView(Context context, AttributeSet attrs, int defStyle) {
+    super(context, attrs, defStyle);
+  }
+
+  /**
+   * Display a precomputed message, replacing the text of this view
+   *
+   * @param message the message, or null to clear it
+   */
+  public void setPrecomputedMessage(PrecomputedMessage message) {
+    super.setText(null, BufferType.NORMAL);
+    this.precomputed = message;
+    setContentDescription(message == null ? null : message.getText());
+    requestLayout();
+    invalidate();
+  }
+
+  /**
+   * @return the precomputed message if there is one, the text of this view otherwise
+   */
+  public CharSequence getMessage() {
+    return precomputed != null ? precomputed.getText() : getText();
+  }
+
+  @Override public void setText(CharSequence text, BufferType type) {
+    if (precomputed != null) {
+      precomputed = null;
+      setContentDescription(null);
+    }
+    super.setText(text, type);
+  }
+
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    if (precomputed == null) {
+      super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+      return;
+    }
+    final int horizontalPadding = getCompoundPaddingLeft() + getCompoundPaddingRight();
+    final int width;
+    if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+      width = (int) Math.ceil(Layout.getDesiredWidth(precomputed.getText(),
+          precomputed.getPaint())) + horizontalPadding;
+    } else {
+      width = MeasureSpec.getSize(widthMeasureSpec);
+    }
+    // Only lays the text out again if the width isn't the one it was precomputed for
+    precomputed = precomputed.withWidth(width - horizontalPadding);
+    final int height = precomputed.getHeight() + getCompoundPaddingTop()
+        + getCompoundPaddingBottom();
+    setMeasuredDimension(width, resolveSize(Math.max(height, getSuggestedMinimumHeight()),
+        heightMeasureSpec));
+  }
+
+  @Override protected void onDraw(Canvas canvas) {
+    if (precomputed == null) {
+      super.onDraw(canvas);
+      return;
+    }
+    final TextPaint paint = precomputed.getPaint();
+    paint.setColor(getCurrentTextColor());
+    paint.drawableState = getDrawableState();
+    canvas.save();
+    canvas.translate(getCompoundPaddingLeft(), getCompoundPaddingTop());
+    precomputed.getLayout().draw(canvas);
+    canvas.restore();
+  }
+}
@@ -0,0 +1,120 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Scrim covering an Activity's window and holding the content of a {@link MaterialDialog}
+ * shown as an overlay, centered and drawn over the dialog theme's window background.
+ * <p/>
+ * Keys the content doesn't handle and touches outside of it are reported to the dialog,
+ * which cancels itself like it would in its own window.
+ */
+class MaterialDialogOverlay extends ViewGroup {
+
+  // Sorted, as obtainStyledAttributes() requires
+  private static final int[] THEME_ATTRS = {
+      android.R.attr.backgroundDimAmount,
+      android.R.attr.windowBackground,
+      android.R.attr.windowCloseOnTouchOutside
+  };
+
+  private final MaterialDialog dialog;
+  private final View content;
+  private final Drawable contentBackground;
+  private final boolean closeOnTouchOutside;
+  private final int margin;
+  private final int maxWidth;
+
+  /**
+   * @param context Context of the Activity the overlay is added to
+   * @param dialog the dialog being shown
+   * @param content the root of the dialog's views
+   */
+  MaterialDialogOverlay(Context context, MaterialDialog dialog, View content) {
+    super(context);
+    this.dialog = dialog;
+    this.content = content;
+
+    final TypedArray a = dialog.getContext().obtainStyledAttributes(THEME_ATTRS);
+    final float dimAmount = a.getFloat(0, 0.6f);
+    contentBackground = a.getDrawable(1);
+    // The attribute only exists from Honeycomb, dialogs didn't close on touch outside before
+    closeOnTouchOutside = a.getBoolean(2,
+        Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB);
+    a.recycle();
+
+    setBackgroundColor(Color.argb(Math.round(dimAmount * 255), 0, 0, 0));
+    setWillNotDraw(false);
+    setFocusable(true);
+    setFocusableInTouchMode(true);
+    margin = getResources().getDimensionPixelSize(R.dimen.mdb__dialog_margin);
+    maxWidth = getResources().getDimensionPixelSize(R.dimen.mdb__dialog_max_width);
+    addView(content);
+  }
+
+  /**
+   * @return if a touch outside of the content cancels the dialog by default, according to its
+   * theme
+   */
+  boolean closesOnTouchOutside() {
+    return closeOnTouchOutside;
+  }
+
+  @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    final int width = MeasureSpec.getSize(widthMeasureSpec);
+    final int height = MeasureSpec.getSize(heightMeasureSpec);
+    setMeasuredDimension(width, height);
+    content.measure(
+        MeasureSpec.makeMeasureSpec(Math.max(0, Math.min(width - 2 * margin, maxWidth)),
+            MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(Math.max(0, height - 2 * margin), MeasureSpec.AT_MOST)
+    );
+  }
+
+  @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    final int left = (r - l - content.getMeasuredWidth()) / 2;
+    final int top = (b - t - content.getMeasuredHeight()) / 2;
+    content.layout(left, top, left + content.getMeasuredWidth(),
+        top + content.getMeasuredHeight());
+    if (contentBackground != null) {
+      contentBackground.setBounds(content.getLeft(), content.getTop(), content.getRight(),
+          content.getBottom());
+    }
+  }
+
+  @Override protected void onDraw(Canvas canvas) {
+    // The scrim is drawn as the background, the window background of the dialog goes on top
+    if (contentBackground != null) {
+      contentBackground.draw(canvas);
+    }
+  }
+
+  @Override public boolean dispatchKeyEvent(KeyEvent event) {
+    // The content gets keys first, as it would in the dialog's window
+    return super.dispatchKeyEvent(event) || dialog.onOverlayKeyEvent(event);
+  }
+
+  @Override public boolean onTouchEvent(MotionEvent event) {
+    // Touches the content didn't handle end up here, none goes through to the Activity
+    if (event.getAction() == MotionEvent.ACTION_UP && !isOnContent(event)) {
+      dialog.onOverlayTouchOutside();
+    }
+    return true;
+  }
+
+  private boolean isOnContent(MotionEvent event) {
+    final int x = (int) event.getX();
+    final int y = (int) event.getY();
+    return x >= content.getLeft() && x < content.getRight()
+        && y >= content.getTop() && y < content.getBottom();
+  }
+}
@@ -0,0 +1,234 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.DialogInterface;
+import android.util.Log;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Shows dialogs one at a time, in order of priority.
+ * <p/>
+ * Requests made while a dialog is showing wait in a bounded backlog, and the next dialog is only
+ * created when the current one is dismissed, so a burst of requests doesn't inflate and stack a
+ * window for each of them. Requests with the same key as one that is showing or waiting are
+ * dropped.
+ * <p/>
+ * A queue must only be used on the main thread. Call {@link #clear()} when the Activity the
+ * dialogs belong to goes away, so the queue lets go of its dialogs and no waiting one is shown
+ * on it. A dialog that fails to be
+ * created or shown is logged and skipped, and the next one is shown instead.
+ */
+public final class MaterialDialogQueue {
+
+  private static final String TAG = "MaterialDialogQueue";
+
+  /**
+   * Default number of requests that can wait while a dialog is showing
+   */
+  public static final int DEFAULT_MAX_PENDING = 8;
+
+  /**
+   * Highest priority first, then first requested first
+   */
+  private static final Comparator<Request> ORDER = new Comparator<Request>() {
+    @Override public int compare(Request lhs, Request rhs) {
+      if (lhs.priority != rhs.priority) {
+        return lhs.priority > rhs.priority ? -1 : 1;
+      }
+      return lhs.sequence < rhs.sequence ? -1 : (lhs.sequence == rhs.sequence ? 0 : 1);
+    }
+  };
+
+  private final int maxPending;
+  private final PriorityQueue<Request> pending;
+  private long sequence = 0;
+
+  private MaterialDialog current;
+  private Object currentKey;
+
+  private final DialogInterface.OnDismissListener onDismissed =
+      new DialogInterface.OnDismissListener() {
+        @Override public void onDismiss(DialogInterface dialog) {
+          if (dialog == current) {
+            current = null;
+            currentKey = null;
+            showNext();
+          }
+        }
+      };
+
+  public MaterialDialogQueue() {
+    this(DEFAULT_MAX_PENDING);
+  }
+
+  /**
+   * @param maxPending number of requests that can wait while a dialog is showing
+   */
+  public MaterialDialogQueue(int maxPending) {
+    if (maxPending < 0) {
+      throw new IllegalArgumentException("maxPending must be >= 0");
+    }
+    this.maxPending = maxPending;
+    this.pending = new PriorityQueue<Request>(Math.max(1, maxPending), ORDER);
+  }
+
+  /**
+   * Show a dialog now if none is showing, or once the ones before it have been dismissed
+   *
+   * @param builder builds the dialog when its turn comes
+   * @return true if the dialog was shown or queued, false if the backlog is full or the dialog
+   * failed to show
+   */
+  public boolean show(MaterialDialog.Builder builder) {
+    return show(builder, null, 0);
+  }
+
+  /**
+   * Show a dialog now if none is showing, or once the ones before it have been dismissed.
+   * <p/>
+   * If a dialog with the same key is showing, the request is dropped. If one is waiting,
+   * the request is dropped too and the waiting one takes the higher of both priorities.
+   * When the backlog is full, the request replaces the waiting one that would be shown last,
+   * if it has a higher priority.
+   *
+   * @param builder builds the dialog when its turn comes
+   * @param key requests with equal keys are only shown once, null to never drop this one
+   * @param priority dialogs with a higher priority are shown first
+   * @return true if the dialog was shown or queued, false if it was dropped or failed to show
+   */
+  public boolean show(MaterialDialog.Builder builder, Object key, int priority) {
+    if (key != null && coalesce(key, priority)) {
+      return false;
+    }
+    final Request request = new Request(builder, key, priority, sequence++);
+    if (current == null) {
+      return showNow(request);
+    }
+    if (pending.size() >= maxPending) {
+      final Request last = findLast();
+      if (last == null || ORDER.compare(request, last) > 0) {
+        return false;
+      }
+      pending.remove(last);
+    }
+    pending.add(request);
+    return true;
+  }
+
+  /**
+   * @return the dialog showing, or null if none is
+   */
+  public MaterialDialog getCurrent() {
+    return current;
+  }
+
+  /**
+   * @return the number of requests waiting for the current dialog to be dismissed
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Drop every waiting request and dismiss the dialog showing, if any
+   */
+  public void clear() {
+    pending.clear();
+    final MaterialDialog dialog = current;
+    if (dialog == null) {
+      return;
+    }
+    // Forgotten first, so its dismissal doesn't show anything
+    current = null;
+    currentKey = null;
+    dialog.setQueueListener(null);
+    if (dialog.isShowing()) {
+      try {
+        dialog.dismiss();
+      } catch (RuntimeException e) {
+        // The window may already be gone along with its Activity
+        Log.w(TAG, "Could not dismiss a queued dialog", e);
+      }
+    }
+  }
+
+  /**
+   * @return true if a request with this key is already showing or waiting
+   */
+  private boolean coalesce(Object key, int priority) {
+    if (current != null && key.equals(currentKey)) {
+      return true;
+    }
+    for (Request request : pending) {
+      if (key.equals(request.key)) {
+        if (priority > request.priority) {
+          // Reinserted, the queue doesn't notice priority changes
+          pending.remove(request);
+          request.priority = priority;
+          pending.add(request);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Request findLast() {
+    Request last = null;
+    for (Request request : pending) {
+      if (last == null || ORDER.compare(request, last) > 0) {
+        last = request;
+      }
+    }
+    return last;
+  }
+
+  private void showNext() {
+    final Request next = pending.poll();
+    if (next != null) {
+      showNow(next);
+    }
+  }
+
+  /**
+   * @return true if the dialog is showing, false if it failed and the next one was shown
+   */
+  private boolean showNow(Request request) {
+    MaterialDialog dialog = null;
+    try {
+      dialog = request.builder.create();
+      current = dialog;
+      currentKey = request.key;
+      dialog.setQueueListener(onDismissed);
+      dialog.setRecycleOnDismiss();
+      dialog.show();
+      return true;
+    } catch (RuntimeException e) {
+      // Such as a BadTokenException once the Activity is gone, the queue mustn't stay stuck
+      Log.w(TAG, "Could not show a queued dialog", e);
+      if (dialog != null && !dialog.isShowing()) {
+        // It will never be dismissed, its tree has to go back now
+        dialog.setQueueListener(null);
+        dialog.recycle();
+      }
+      current = null;
+      currentKey = null;
+      showNext();
+      return false;
+    }
+  }
+
+  private static final class Request {
+    final MaterialDialog.Builder builder;
+    final Object key;
+    final long sequence;
+    int priority;
+
+    Request(MaterialDialog.Builder builder, Object key, int priority, long sequence) {
+      this.builder = builder;
+      this.key = key;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import java.util.ArrayDeque;
+
+/**
+ * A bounded pool of inflated {@code mdb__dialog} view trees, kept per dialog theme.
+ * <p/>
+ * {@link com.prolificinteractive.materialdialog.MaterialDialog.Builder#create()} borrows a tree
+ * from the pool when one is available for its theme, so the dialog skips inflating its layout.
+ * Dialogs the library shows and drops itself, through
+ * {@link com.prolificinteractive.materialdialog.MaterialDialog.Builder#show()},
+ * {@link MaterialDialogQueue} or {@link MaterialDialogFragment}, hand their tree back once they
+ * are dismissed.
+ * <p/>
+ * The pool starts empty, use {@link #prefill(android.content.Context, int, int)} or
+ * {@link #prefillAsync(android.content.Context, int, int)} to warm it.
+ * Call {@link #onTrimMemory(int)} from your Application's {@code onTrimMemory()} to release
+ * pooled trees when the system is low on memory.
+ */
+public final class MaterialDialogViewPool {
+
+  /**
+   * Default number of trees kept for each theme
+   */
+  public static final int DEFAULT_MAX_SIZE = 2;
+
+  private static final String TAG = "MaterialDialogViewPool";
+
+  private static final MaterialDialogViewPool INSTANCE = new MaterialDialogViewPool();
+
+  private final SparseArray<ArrayDeque<View>> pools = new SparseArray<ArrayDeque<View>>();
+  private int maxSize = DEFAULT_MAX_SIZE;
+
+  private MaterialDialogViewPool() {
+  }
+
+  /**
+   * @return the shared pool instance
+   */
+  public static MaterialDialogViewPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Set the maximum number of trees kept for each theme. Extra trees are dropped.
+   *
+   * @param maxSize the maximum size, 0 disables pooling
+   */
+  public synchronized void setMaxSize(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxSize = maxSize;
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Inflate trees for a theme until the pool holds {@code count} of them,
+   * or is full. This must be called on a thread that can inflate views.
+   *
+   * @param context Context used to inflate, only its application context is retained
+   * @param theme Theme to inflate with, 0 for the default dialog theme of the context
+   * @param count Number of trees wanted in the pool
+   */
+  public void prefill(Context context, int theme, int count) {
+    prefillResolved(context, MaterialDialog.getDialogTheme(context, theme), count);
+  }
+
+  /**
+   * Inflate trees for a theme on a background thread until the pool holds {@code count} of them,
+   * or is full. The theme is resolved on the calling thread.
+   *
+   * @param context Context used to inflate, only its application context is retained
+   * @param theme Theme to inflate with, 0 for the default dialog theme of the context
+   * @param count Number of trees wanted in the pool
+   */
+  public void prefillAsync(Context context, int theme, final int count) {
+    final Context appContext = context.getApplicationContext();
+    final int resolvedTheme = MaterialDialog.getDialogTheme(context, theme);
+    DialogThreads.background().post(new Runnable() {
+      @Override public void run() {
+        try {
+          prefillResolved(appContext, resolvedTheme, count);
+        } catch (RuntimeException e) {
+          Log.w(TAG, "Could not inflate in the background, retrying on the main thread", e);
+          DialogThreads.main().post(new Runnable() {
+            @Override public void run() {
+              prefillResolved(appContext, resolvedTheme, count);
+            }
+          });
+        }
+      }
+    });
+  }
+
+  private void prefillResolved(Context context, int theme, int count) {
+    while (size(theme) < Math.min(count, getMaxSize())) {
+      if (!release(theme, inflate(context, theme))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param theme a resolved dialog theme
+   * @return the number of trees pooled for that theme
+   */
+  public synchronized int size(int theme) {
+    ArrayDeque<View> pool = pools.get(theme);
+    return pool == null ? 0 : pool.size();
+  }
+
+  /**
+   * Drop every pooled tree
+   */
+  public synchronized void clear() {
+    pools.clear();
+  }
+
+  /**
+   * Release pooled trees in response to memory pressure
+   *
+   * @param level the level passed to {@link android.content.ComponentCallbacks2#onTrimMemory(int)}
+   */
+  public void onTrimMemory(int level) {
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      clear();
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      synchronized (this) {
+        trimToSize(maxSize / 2);
+      }
+    }
+  }
+
+  private synchronized int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Take a tree out of the pool
+   *
+   * @param theme a resolved dialog theme
+   * @return a reset tree, or null if none is pooled for that theme
+   */
+  synchronized View acquire(int theme) {
+    ArrayDeque<View> pool = pools.get(theme);
+    return pool == null ? null : pool.poll();
+  }
+
+  /**
+   * Put a reset tree back into the pool
+   *
+   * @param theme the resolved dialog theme the tree was inflated with
+   * @param root the root of the tree, it must not be attached to a parent
+   * @return true if the tree was kept, false if the pool is full
+   */
+  synchronized boolean release(int theme, View root) {
+    ArrayDeque<View> pool = pools.get(theme);
+    if (pool == null) {
+      pool = new ArrayDeque<View>(maxSize);
+      pools.put(theme, pool);
+    }
+    if (pool.size() >= maxSize) {
+      return false;
+    }
+    pool.offer(root);
+    return true;
+  }
+
+  private void trimToSize(int size) {
+    for (int i = 0; i < pools.size(); i++) {
+      ArrayDeque<View> pool = pools.valueAt(i);
+      while (pool.size() > size) {
+        pool.poll();
+      }
+    }
+  }
+
+  /**
+   * Inflate a new tree. Only the application context is kept by the views,
+   * so pooled trees don't leak the Activity that asked for them.
+   */
+  static View inflate(Context context, int theme) {
+    Context themed = new ContextThemeWrapper(context.getApplicationContext(), theme);
+    return LayoutInflater.from(themed).inflate(R.layout.mdb__dialog, null);
+  }
+
+  /**
+   * @return the layout params a pooled tree should be attached with
+   */
+  static ViewGroup.LayoutParams newLayoutParams() {
+    return new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT
+    );
+  }
+}
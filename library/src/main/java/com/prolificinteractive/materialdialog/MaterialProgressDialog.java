@@ -0,0 +1,307 @@
+package com.prolificinteractive.materialdialog;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.text.TextUtils;
+import android.view.Choreographer;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import java.text.NumberFormat;
+
+/**
+ * A {@link MaterialDialog} showing a progress bar under its message, either determinate with
+ * the progress as a percentage and a number, or indeterminate.
+ * <p/>
+ * Progress and message can be updated from any thread. Updates are applied once per frame,
+ * with the latest values, and text is only set again when its formatted value changed, so
+ * workers can report as often as they like.
+ */
+public class MaterialProgressDialog extends MaterialDialog {
+
+  // About one frame at 60 fps, where there is no Choreographer
+  private static final long FRAME_DELAY_MS = 16;
+
+  private final ProgressBar progressBar;
+  private final View numbersView;
+  private final TextView percentView;
+  private final TextView numberView;
+
+  // Guards the state below, written from any thread and applied on the main thread
+  private final Object lock = new Object();
+  private int max = 100;
+  private int progress = 0;
+  private boolean indeterminate = false;
+  private CharSequence message;
+  private boolean messageChanged = false;
+  private String numberFormat = "%1$d/%2$d";
+  private NumberFormat percentFormat = NumberFormat.getPercentInstance();
+  private boolean formatsChanged = true;
+  private boolean frameScheduled = false;
+
+  // Main thread only, what the views currently show
+  private int appliedMax = -1;
+  private int appliedProgress = -1;
+  private CharSequence appliedMessage;
+
+  private final Runnable frameRunnable = new Runnable() {
+    @Override public void run() {
+      onFrame();
+    }
+  };
+  private final NextFrame nextFrame;
+
+  /**
+   * Construct a progress dialog that uses the theme defined using
+   * {@link com.prolificinteractive.materialdialog.R.attr#MaterialDialogTheme}
+   */
+  public MaterialProgressDialog(Context context) {
+    this(context, 0);
+  }
+
+  /**
+   * Construct a progress dialog with the given theme
+   *
+   * @see MaterialDialog#MaterialDialog(Context, int)
+   */
+  public MaterialProgressDialog(Context context, int theme) {
+    super(context, theme);
+    // In the content panel, a custom view would hide the message
+    final View content = LayoutInflater.from(getContext())
+        .inflate(R.layout.mdb__dialog_progress, null);
+    progressBar = (ProgressBar) content.findViewById(R.id.mdb__progress);
+    numbersView = content.findViewById(R.id.mdb__progressNumbers);
+    percentView = (TextView) content.findViewById(R.id.mdb__progressPercent);
+    numberView = (TextView) content.findViewById(R.id.mdb__progressNumber);
+    setContentFooter(content);
+
+    nextFrame = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+        ? new NextFrame(frameRunnable) : null;
+    onFrame();
+  }
+
+  /**
+   * Set the progress. Can be called from any thread.
+   *
+   * @param progress the progress, between 0 and {@link #getMax()}
+   */
+  public void setProgress(int progress) {
+    synchronized (lock) {
+      if (this.progress == progress) {
+        return;
+      }
+      this.progress = progress;
+    }
+    scheduleFrame();
+  }
+
+  /**
+   * Add to the progress. Can be called from any thread, such as by several workers each
+   * reporting their share.
+   *
+   * @param diff the amount to add
+   */
+  public void incrementProgressBy(int diff) {
+    synchronized (lock) {
+      progress += diff;
+    }
+    scheduleFrame();
+  }
+
+  /**
+   * @return the progress last set, which may not be displayed yet
+   */
+  public int getProgress() {
+    synchronized (lock) {
+      return progress;
+    }
+  }
+
+  /**
+   * Set the upper bound of the progress. Default is 100. Can be called from any thread.
+   *
+   * @param max the upper bound
+   */
+  public void setMax(int max) {
+    synchronized (lock) {
+      if (this.max == max) {
+        return;
+      }
+      this.max = max;
+    }
+    scheduleFrame();
+  }
+
+  /**
+   * @return the upper bound of the progress
+   */
+  public int getMax() {
+    synchronized (lock) {
+      return max;
+    }
+  }
+
+  /**
+   * Show an indeterminate progress bar, without percentage or number, or a determinate one.
+   * Default is determinate. Can be called from any thread.
+   *
+   * @param indeterminate true for an indeterminate progress bar
+   */
+  public void setIndeterminate(boolean indeterminate) {
+    synchronized (lock) {
+      if (this.indeterminate == indeterminate) {
+        return;
+      }
+      this.indeterminate = indeterminate;
+    }
+    scheduleFrame();
+  }
+
+  /**
+   * @return true if the progress bar is indeterminate
+   */
+  public boolean isIndeterminate() {
+    synchronized (lock) {
+      return indeterminate;
+    }
+  }
+
+  /**
+   * Set the format of the number shown under a determinate progress bar, given the progress
+   * and the upper bound. Default is "%1$d/%2$d". Can be called from any thread.
+   *
+   * @param format a {@link String#format(String, Object...)} format, or null to hide the number
+   */
+  public void setProgressNumberFormat(String format) {
+    synchronized (lock) {
+      numberFormat = format;
+      formatsChanged = true;
+    }
+    scheduleFrame();
+  }
+
+  /**
+   * Set the format of the percentage shown under a determinate progress bar.
+   * Default is the locale's percent format, without decimals. Can be called from any thread.
+   *
+   * @param format the format, which is then only used on the main thread, or null to hide the
+   * percentage
+   */
+  public void setProgressPercentFormat(NumberFormat format) {
+    synchronized (lock) {
+      percentFormat = format;
+      formatsChanged = true;
+    }
+    scheduleFrame();
+  }
+
+  /**
+   * Display a message above the progress bar. Can be called from any thread.
+   *
+   * @param message the new text for the message
+   */
+  @Override public void setMessage(CharSequence message) {
+    synchronized (lock) {
+      this.message = message;
+      messageChanged = true;
+    }
+    scheduleFrame();
+  }
+
+  private void scheduleFrame() {
+    synchronized (lock) {
+      if (frameScheduled) {
+        return;
+      }
+      frameScheduled = true;
+    }
+    if (nextFrame != null) {
+      nextFrame.post();
+    } else {
+      DialogThreads.main().postDelayed(frameRunnable, FRAME_DELAY_MS);
+    }
+  }
+
+  /**
+   * Apply the latest state to the views, on the main thread
+   */
+  private void onFrame() {
+    final int max;
+    final int progress;
+    final boolean indeterminate;
+    final CharSequence message;
+    final boolean messageChanged;
+    final String numberFormat;
+    final NumberFormat percentFormat;
+    final boolean formatsChanged;
+    synchronized (lock) {
+      frameScheduled = false;
+      max = this.max;
+      progress = this.progress;
+      indeterminate = this.indeterminate;
+      message = this.message;
+      messageChanged = this.messageChanged;
+      numberFormat = this.numberFormat;
+      percentFormat = this.percentFormat;
+      formatsChanged = this.formatsChanged;
+      this.messageChanged = false;
+      this.formatsChanged = false;
+    }
+
+    if (messageChanged && !TextUtils.equals(message, appliedMessage)) {
+      appliedMessage = message;
+      super.setMessage(message);
+    }
+    if (indeterminate != progressBar.isIndeterminate()) {
+      progressBar.setIndeterminate(indeterminate);
+      numbersView.setVisibility(indeterminate ? View.GONE : View.VISIBLE);
+    }
+    if (indeterminate
+        || (max == appliedMax && progress == appliedProgress && !formatsChanged)) {
+      return;
+    }
+    appliedMax = max;
+    appliedProgress = progress;
+    progressBar.setMax(max);
+    progressBar.setProgress(progress);
+    setTextIfChanged(numberView,
+        numberFormat != null ? String.format(numberFormat, progress, max) : null);
+    setTextIfChanged(percentView,
+        percentFormat != null ? percentFormat.format(max > 0 ? (double) progress / max : 0)
+            : null);
+  }
+
+  /**
+   * Setting the same text would still lay the view out again
+   */
+  private static void setTextIfChanged(TextView view, String text) {
+    if (!TextUtils.equals(view.getText(), text)) {
+      view.setText(text);
+    }
+    view.setVisibility(text != null ? View.VISIBLE : View.GONE);
+  }
+
+  /**
+   * Runs an action with the next frame drawn by the main thread's Choreographer
+   */
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  private static final class NextFrame implements Choreographer.FrameCallback {
+    // The main thread's, posting to it is safe from any thread
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Runnable action;
+
+    NextFrame(Runnable action) {
+      this.action = action;
+    }
+
+    void post() {
+      choreographer.postFrameCallback(this);
+    }
+
+    @Override public void doFrame(long frameTimeNanos) {
+      action.run();
+    }
+  }
+}
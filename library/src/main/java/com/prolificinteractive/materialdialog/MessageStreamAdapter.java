@@ -0,0 +1,240 @@
+package com.prolificinteractive.materialdialog;
+
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter showing a long message one paragraph per row, reading the paragraphs on a background
+ * thread as the list gets close to the end of what has been read.
+ * <p/>
+ * Only the rows on screen are laid out, the list recycles them as the user scrolls.
+ */
+class MessageStreamAdapter extends BaseAdapter {
+
+  private static final String TAG = "MessageStreamAdapter";
+
+  /**
+   * Paragraphs read at once
+   */
+  static final int CHUNK_SIZE = 40;
+
+  private final ParagraphReader reader;
+  private final Executor executor;
+  private final int layoutId;
+
+  // Only touched on the main thread
+  private final List<CharSequence> paragraphs = new ArrayList<CharSequence>();
+  private boolean loading = false;
+  private boolean finished = false;
+  private boolean closed = false;
+
+  /**
+   * @param layoutId layout of a row, whose root is a TextView
+   */
+  MessageStreamAdapter(ParagraphReader reader, Executor executor, int layoutId) {
+    this.reader = reader;
+    this.executor = executor;
+    this.layoutId = layoutId;
+    // The first screenful is read right away
+    requestChunk();
+  }
+
+  /**
+   * Stop reading and close the source. Paragraphs already read are still shown.
+   */
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        reader.close();
+      }
+    });
+  }
+
+  /**
+   * @return true if the source was closed before the end of the message was read
+   */
+  boolean isTruncated() {
+    return closed && !finished;
+  }
+
+  @Override public int getCount() {
+    return paragraphs.size();
+  }
+
+  @Override public CharSequence getItem(int position) {
+    return paragraphs.get(position);
+  }
+
+  @Override public long getItemId(int position) {
+    return position;
+  }
+
+  @Override public boolean areAllItemsEnabled() {
+    return false;
+  }
+
+  @Override public boolean isEnabled(int position) {
+    return false;
+  }
+
+  @Override public View getView(int position, View convertView, ViewGroup parent) {
+    TextView view = (TextView) convertView;
+    if (view == null) {
+      view = (TextView) LayoutInflater.from(parent.getContext())
+          .inflate(layoutId, parent, false);
+    }
+    view.setText(paragraphs.get(position));
+    // Read ahead before the user gets to the end
+    if (position >= paragraphs.size() - CHUNK_SIZE / 2) {
+      requestChunk();
+    }
+    return view;
+  }
+
+  private void requestChunk() {
+    if (loading || finished || closed) {
+      return;
+    }
+    loading = true;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        final List<CharSequence> chunk = new ArrayList<CharSequence>(CHUNK_SIZE);
+        boolean end = false;
+        try {
+          while (chunk.size() < CHUNK_SIZE) {
+            final CharSequence paragraph = reader.next();
+            if (paragraph == null) {
+              end = true;
+              break;
+            }
+            chunk.add(paragraph);
+          }
+        } catch (IOException e) {
+          Log.w(TAG, "Could not read the message", e);
+          end = true;
+        } catch (RuntimeException e) {
+          // Thrown on the background thread, it would kill the process and leave loading set
+          Log.w(TAG, "Could not read the message", e);
+          end = true;
+        }
+        if (end) {
+          reader.close();
+        }
+        final boolean reachedEnd = end;
+        DialogThreads.main().post(new Runnable() {
+          @Override public void run() {
+            loading = false;
+            finished = reachedEnd;
+            paragraphs.addAll(chunk);
+            notifyDataSetChanged();
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Splits a message into paragraphs. Only called on the background Executor.
+   */
+  abstract static class ParagraphReader {
+
+    /**
+     * @return the next paragraph, or null at the end of the message
+     */
+    abstract CharSequence next() throws IOException;
+
+    abstract void close();
+
+    static void closeQuietly(Closeable closeable) {
+      try {
+        closeable.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  /**
+   * One paragraph per line of a Reader
+   */
+  static final class LineReader extends ParagraphReader {
+
+    private final BufferedReader reader;
+
+    LineReader(Reader reader) {
+      this.reader = reader instanceof BufferedReader
+          ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override CharSequence next() throws IOException {
+      return reader.readLine();
+    }
+
+    @Override void close() {
+      closeQuietly(reader);
+    }
+  }
+
+  /**
+   * One paragraph per line of text split across chunks of any size
+   */
+  static final class ChunkReader extends ParagraphReader {
+
+    private final Iterator<? extends CharSequence> chunks;
+    private final StringBuilder pending = new StringBuilder();
+    // Start of the text of pending that hasn't been returned yet
+    private int start = 0;
+    private boolean exhausted = false;
+
+    ChunkReader(Iterator<? extends CharSequence> chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override CharSequence next() {
+      while (true) {
+        final int newline = pending.indexOf("\n", start);
+        if (newline >= 0) {
+          final String line = pending.substring(start, newline);
+          start = newline + 1;
+          return line;
+        }
+        pending.delete(0, start);
+        start = 0;
+        if (exhausted || !chunks.hasNext()) {
+          exhausted = true;
+          if (pending.length() == 0) {
+            return null;
+          }
+          final String last = pending.toString();
+          pending.setLength(0);
+          return last;
+        }
+        pending.append(chunks.next());
+      }
+    }
+
+    @Override void close() {
+      exhausted = true;
+      start = 0;
+      pending.setLength(0);
+      if (chunks instanceof Closeable) {
+        closeQuietly((Closeable) chunks);
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.prolificinteractive.materialdialog;
+
+import android.util.Log;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link ItemSource} that loads its labels in pages, on a background thread,
+ * as the list asks for them. Only the most recently used pages are kept in memory.
+ * <p/>
+ * Items of a page that is still loading are reported as null and
+ * shown empty until the page arrives. A page whose load throws is reported as null until the
+ * list asks for it again.
+ */
+public abstract class PagedItemSource implements ItemSource {
+
+  private static final String TAG = "PagedItemSource";
+
+  /**
+   * Default number of items in a page
+   */
+  public static final int DEFAULT_PAGE_SIZE = 50;
+
+  /**
+   * Default number of pages kept in memory
+   */
+  public static final int DEFAULT_MAX_PAGES = 4;
+
+  private final int count;
+  private final int pageSize;
+  private final int maxPages;
+  private final Executor executor;
+
+  // Only touched on the main thread
+  private final LinkedHashMap<Integer, CharSequence[]> pages;
+  private final Set<Integer> loading = new HashSet<Integer>();
+  // Pages loaded before the last invalidate() are dropped when they arrive
+  private int generation = 0;
+  private OnPageLoadedListener listener;
+  private OnPageLoadedListener adapterListener;
+
+  /**
+   * @param count total number of items
+   */
+  public PagedItemSource(int count) {
+    this(count, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, DialogThreads.backgroundExecutor());
+  }
+
+  /**
+   * @param count total number of items
+   * @param pageSize number of items loaded at once
+   * @param maxPages number of pages kept in memory, at least 2
+   * @param executor Executor that runs {@link #loadPage(int, int)}
+   */
+  public PagedItemSource(int count, int pageSize, final int maxPages, Executor executor) {
+    if (pageSize <= 0 || maxPages < 2) {
+      throw new IllegalArgumentException("pageSize must be > 0 and maxPages >= 2");
+    }
+    this.count = count;
+    this.pageSize = pageSize;
+    this.maxPages = maxPages;
+    this.executor = executor;
+    this.pages = new LinkedHashMap<Integer, CharSequence[]>(maxPages + 1, 1f, true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<Integer, CharSequence[]> eldest) {
+        return size() > maxPages;
+      }
+    };
+  }
+
+  /**
+   * Load a page of labels. Called on the background Executor.
+   *
+   * @param offset position of the first item of the page
+   * @param size number of items wanted, may be less than the page size for the last page
+   * @return the labels, in order
+   */
+  protected abstract CharSequence[] loadPage(int offset, int size);
+
+  @Override public int count() {
+    return count;
+  }
+
+  @Override public CharSequence get(int position) {
+    final int page = position / pageSize;
+    final CharSequence[] items = pages.get(page);
+    if (items == null) {
+      requestPage(page);
+      return null;
+    }
+    // Start loading the next page before the list gets to it
+    if (position % pageSize >= pageSize * 3 / 4) {
+      requestPage(page + 1);
+    }
+    final int index = position % pageSize;
+    return index < items.length ? items[index] : null;
+  }
+
+  /**
+   * Set a listener notified on the main thread when a page has been loaded
+   */
+  public void setOnPageLoadedListener(OnPageLoadedListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Listener of the adapter showing this source, kept apart from the one set by the user
+   */
+  void setAdapterListener(OnPageLoadedListener adapterListener) {
+    this.adapterListener = adapterListener;
+  }
+
+  /**
+   * Drop every loaded page, they will be loaded again when needed.
+   * Pages still loading are dropped when they arrive.
+   */
+  public void invalidate() {
+    generation++;
+    pages.clear();
+    loading.clear();
+  }
+
+  private void requestPage(final int page) {
+    final int offset = page * pageSize;
+    if (offset >= count || pages.containsKey(page) || !loading.add(page)) {
+      return;
+    }
+    final int size = Math.min(pageSize, count - offset);
+    final int requestGeneration = generation;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        CharSequence[] items = null;
+        try {
+          items = loadPage(offset, size);
+        } catch (RuntimeException e) {
+          // Thrown on the shared background thread, it would take the app down with it
+          Log.w(TAG, "Could not load the page at " + offset, e);
+        }
+        deliverPage(requestGeneration, page, items);
+      }
+    });
+  }
+
+  /**
+   * Called on the loading thread, even when the load threw, so the page can be asked again
+   */
+  private void deliverPage(final int requestGeneration, final int page,
+      final CharSequence[] items) {
+    DialogThreads.main().post(new Runnable() {
+      @Override public void run() {
+        if (requestGeneration != generation) {
+          return;
+        }
+        loading.remove(page);
+        if (items == null) {
+          return;
+        }
+        pages.put(page, items);
+        final int offset = page * pageSize;
+        final int size = Math.min(pageSize, count - offset);
+        if (adapterListener != null) {
+          adapterListener.onPageLoaded(offset, size);
+        }
+        if (listener != null) {
+          listener.onPageLoaded(offset, size);
+        }
+      }
+    });
+  }
+
+  /**
+   * Listener for pages of a {@link PagedItemSource}
+   */
+  public static interface OnPageLoadedListener {
+    /**
+     * @param offset position of the first item of the page
+     * @param size number of items in the page
+     */
+    public void onPageLoaded(int offset, int size);
+  }
+}
@@ -0,0 +1,84 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.Context;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * A dialog message with its line breaks already computed, so a long message doesn't have to be
+ * laid out on the main thread when the dialog is first measured.
+ * <p/>
+ * {@link #create(android.content.Context, int, CharSequence, int)} can be called on any thread.
+ * The text is laid out with the {@code textAppearanceMaterialDialogMessage} of the dialog theme,
+ * for a given width. If the message ends up with a different width, it is laid out again.
+ *
+ * @see MaterialDialog#getMessageWidth()
+ * @see MaterialDialog.Builder#setMessage(PrecomputedMessage)
+ */
+public final class PrecomputedMessage {
+
+  private final CharSequence text;
+  private final TextPaint paint;
+  private final Layout layout;
+
+  private PrecomputedMessage(CharSequence text, TextPaint paint, int width) {
+    this.text = text;
+    this.paint = paint;
+    this.layout = new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL,
+        1f, 0f, true);
+  }
+
+  /**
+   * Lay out a message. This can be called on any thread.
+   *
+   * @param context Context the dialog will be created with
+   * @param theme the dialog theme, 0 for the default dialog theme of the context
+   * @param text the message
+   * @param width the width available to the text in pixels, without the message's padding
+   * @return the laid out message
+   */
+  public static PrecomputedMessage create(Context context, int theme, CharSequence text,
+      int width) {
+    final TextPaint paint = ThemeCache.getMessageAppearance(
+        context, MaterialDialog.getDialogTheme(context, theme)
+    ).newPaint(context.getResources().getDisplayMetrics().density);
+    return new PrecomputedMessage(text, paint, Math.max(0, width));
+  }
+
+  /**
+   * @return the message
+   */
+  public CharSequence getText() {
+    return text;
+  }
+
+  /**
+   * @return the width the message was laid out for
+   */
+  public int getWidth() {
+    return layout.getWidth();
+  }
+
+  /**
+   * @return the height of the laid out message, without padding
+   */
+  public int getHeight() {
+    return layout.getHeight();
+  }
+
+  Layout getLayout() {
+    return layout;
+  }
+
+  TextPaint getPaint() {
+    return paint;
+  }
+
+  /**
+   * @return this message laid out for another width
+   */
+  PrecomputedMessage withWidth(int width) {
+    return width == getWidth() ? this : new PrecomputedMessage(text, paint, Math.max(0, width));
+  }
+}
@@ -0,0 +1,285 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+import android.widget.WrapperListAdapter;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+/**
+ * Base adapter for dialog lists whose items are live, large or of several types,
+ * built around view holders like a RecyclerView adapter.
+ * <p/>
+ * The ListView of the dialog keeps recycled rows in a pool per view type. On top of that,
+ * once a dialog using this adapter is created, holders are created for each view type while
+ * the main thread is idle, so a type showing up for the first time while scrolling doesn't
+ * have to be inflated during a frame.
+ * <p/>
+ * When items change but their number doesn't, {@link #notifyItemChanged(int)} and
+ * {@link #notifyItemRangeChanged(int, int)} bind again only the rows on screen showing them,
+ * without laying out the list. Inserting or removing items still needs
+ * {@link #notifyDataSetChanged()}.
+ * <p/>
+ * Give this adapter to
+ * {@link MaterialDialog.Builder#setAdapter(android.widget.ListAdapter,
+ * android.content.DialogInterface.OnClickListener)} or any other Builder method taking an adapter.
+ *
+ * @param <VH> type of the view holders
+ */
+public abstract class RecyclingAdapter<VH extends RecyclingAdapter.ViewHolder>
+    extends BaseAdapter {
+
+  /**
+   * Default number of holders created ahead of time for each view type
+   */
+  public static final int DEFAULT_PREFETCH_COUNT = 2;
+
+  private final SparseArray<ArrayList<VH>> prefetched = new SparseArray<ArrayList<VH>>();
+  private int prefetchCount = DEFAULT_PREFETCH_COUNT;
+  private Prefetcher prefetcher;
+  // Context the prefetched holders were inflated with
+  private Context prefetchContext;
+  // List showing the rows, rebound in place on item changes
+  private WeakReference<ListView> attachedList;
+
+  /**
+   * @return the number of items
+   */
+  public abstract int getItemCount();
+
+  /**
+   * Create a holder and the view of a row. This may be called ahead of time,
+   * when the main thread is idle.
+   *
+   * @param parent the list, rows should be inflated with it as their parent but not attached
+   * @param viewType the view type, as returned by {@link #getItemViewType(int)}
+   * @return a new holder
+   */
+  public abstract VH onCreateViewHolder(ViewGroup parent, int viewType);
+
+  /**
+   * Display an item in a row
+   *
+   * @param holder a holder for the item's view type, new or recycled
+   * @param position position of the item
+   */
+  public abstract void onBindViewHolder(VH holder, int position);
+
+  /**
+   * Set how many holders are created ahead of time for each view type
+   *
+   * @param count the count, 0 to create holders only when the list asks for them
+   */
+  public void setPrefetchCount(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must be >= 0");
+    }
+    this.prefetchCount = count;
+  }
+
+  @Override public final int getCount() {
+    return getItemCount();
+  }
+
+  @Override public Object getItem(int position) {
+    return null;
+  }
+
+  @Override public long getItemId(int position) {
+    return position;
+  }
+
+  /**
+   * Bind an item again if its row is on screen. Must be called on the main thread.
+   *
+   * @param position position of the item that changed
+   */
+  public final void notifyItemChanged(int position) {
+    notifyItemRangeChanged(position, 1);
+  }
+
+  /**
+   * Bind items again if their rows are on screen, without laying out the list unless one of
+   * them changed view type. The number of items must be the same.
+   * Must be called on the main thread.
+   *
+   * @param start position of the first item that changed
+   * @param count number of items that changed
+   */
+  @SuppressWarnings("unchecked")
+  public final void notifyItemRangeChanged(int start, int count) {
+    final ListView list = attachedList != null ? attachedList.get() : null;
+    if (list == null || count <= 0 || !isAdapterOf(list)) {
+      return;
+    }
+    final int end = start + count;
+    for (int i = 0; i < list.getChildCount(); i++) {
+      final Object tag = list.getChildAt(i).getTag(R.id.mdb__view_holder);
+      if (!(tag instanceof ViewHolder)) {
+        // Headers and footers
+        continue;
+      }
+      final VH holder = (VH) tag;
+      if (holder.position < start || holder.position >= end) {
+        continue;
+      }
+      if (holder.viewType != getItemViewType(holder.position)) {
+        // The row needs another view, only the list can swap it
+        notifyDataSetChanged();
+        return;
+      }
+      onBindViewHolder(holder, holder.position);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public final View getView(int position, View convertView, ViewGroup parent) {
+    if (parent instanceof ListView) {
+      attach((ListView) parent);
+    }
+    final VH holder;
+    if (convertView != null) {
+      holder = (VH) convertView.getTag(R.id.mdb__view_holder);
+    } else {
+      holder = obtainHolder(parent, getItemViewType(position));
+    }
+    holder.position = position;
+    onBindViewHolder(holder, position);
+    return holder.itemView;
+  }
+
+  private VH obtainHolder(ViewGroup parent, int viewType) {
+    final ArrayList<VH> holders = prefetched.get(viewType);
+    if (holders != null && !holders.isEmpty()) {
+      return holders.remove(holders.size() - 1);
+    }
+    return createHolder(parent, viewType);
+  }
+
+  private VH createHolder(ViewGroup parent, int viewType) {
+    final VH holder = onCreateViewHolder(parent, viewType);
+    holder.viewType = viewType;
+    holder.itemView.setTag(R.id.mdb__view_holder, holder);
+    return holder;
+  }
+
+  /**
+   * Start creating holders for the list while the main thread is idle.
+   * Must be called on the main thread.
+   */
+  void prefetch(ListView listView) {
+    attach(listView);
+    if (prefetchContext != listView.getContext()) {
+      // The adapter moved to a dialog of another Activity, such as one recreated on rotation
+      prefetched.clear();
+      prefetchContext = listView.getContext();
+    }
+    if (prefetchCount == 0) {
+      return;
+    }
+    if (prefetcher != null) {
+      prefetcher.stop();
+    }
+    prefetcher = new Prefetcher(this, listView);
+    Looper.myQueue().addIdleHandler(prefetcher);
+  }
+
+  private void attach(ListView listView) {
+    if (attachedList == null || attachedList.get() != listView) {
+      attachedList = new WeakReference<ListView>(listView);
+    }
+  }
+
+  private boolean isAdapterOf(ListView listView) {
+    ListAdapter current = listView.getAdapter();
+    if (current instanceof WrapperListAdapter) {
+      current = ((WrapperListAdapter) current).getWrappedAdapter();
+    }
+    return current == this;
+  }
+
+  /**
+   * Create one holder ahead of time
+   *
+   * @return false once every view type has its holders
+   */
+  private boolean prefetchOne(ViewGroup parent) {
+    for (int viewType = 0; viewType < getViewTypeCount(); viewType++) {
+      ArrayList<VH> holders = prefetched.get(viewType);
+      if (holders == null) {
+        holders = new ArrayList<VH>(prefetchCount);
+        prefetched.put(viewType, holders);
+      }
+      if (holders.size() < prefetchCount) {
+        holders.add(createHolder(parent, viewType));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Creates one holder each time the main thread goes idle, only holds the list weakly
+   */
+  private static final class Prefetcher implements MessageQueue.IdleHandler {
+
+    private final RecyclingAdapter<?> adapter;
+    private final WeakReference<ListView> listView;
+    private boolean stopped = false;
+
+    Prefetcher(RecyclingAdapter<?> adapter, ListView listView) {
+      this.adapter = adapter;
+      this.listView = new WeakReference<ListView>(listView);
+    }
+
+    void stop() {
+      stopped = true;
+    }
+
+    @Override public boolean queueIdle() {
+      final ListView list = listView.get();
+      if (stopped || list == null) {
+        return false;
+      }
+      return adapter.isAdapterOf(list) && adapter.prefetchOne(list);
+    }
+  }
+
+  /**
+   * Holds the view of a row and whatever the adapter needs to bind it
+   */
+  public static class ViewHolder {
+
+    public final View itemView;
+    int viewType;
+    int position = -1;
+
+    public ViewHolder(View itemView) {
+      if (itemView == null) {
+        throw new IllegalArgumentException("itemView may not be null");
+      }
+      this.itemView = itemView;
+    }
+
+    /**
+     * @return the view type of this holder
+     */
+    public int getItemViewType() {
+      return viewType;
+    }
+
+    /**
+     * @return the position of the item this holder was last bound to, or -1
+     */
+    public int getPosition() {
+      return position;
+    }
+  }
+}
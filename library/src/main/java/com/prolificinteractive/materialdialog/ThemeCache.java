@@ -0,0 +1,180 @@
+package com.prolificinteractive.materialdialog;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.ContextThemeWrapper;
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Caches what dialogs resolve from a Context's theme, keyed by the identity of that theme.
+ * An entry is dropped when the configuration of the Context changes.
+ */
+final class ThemeCache {
+
+  // Sorted, as obtainStyledAttributes() requires
+  private static final int[] TEXT_APPEARANCE_ATTRS = {
+      android.R.attr.textSize,
+      android.R.attr.typeface,
+      android.R.attr.textStyle,
+      android.R.attr.textColor
+  };
+
+  private static final WeakHashMap<Resources.Theme, Entry> CACHE =
+      new WeakHashMap<Resources.Theme, Entry>();
+
+  private ThemeCache() {
+  }
+
+  /**
+   * @param context Context that has the theme
+   * @return the theme set with {@link R.attr#MaterialDialogTheme}, or 0 if there is none
+   */
+  static synchronized int getDefaultDialogTheme(Context context) {
+    Entry entry = getEntry(context);
+    if (!entry.defaultThemeResolved) {
+      TypedValue out = new TypedValue();
+      context.getTheme().resolveAttribute(R.attr.MaterialDialogTheme, out, false);
+      entry.defaultTheme = out.type == TypedValue.TYPE_REFERENCE && out.data > 0 ? out.data : 0;
+      entry.defaultThemeResolved = true;
+    }
+    return entry.defaultTheme;
+  }
+
+  /**
+   * @param context Context to wrap
+   * @param theme a resolved dialog theme
+   * @return a Context with the dialog theme applied on top of the one of {@code context}
+   */
+  static synchronized Context getThemedContext(Context context, int theme) {
+    Entry entry = getEntry(context);
+    WeakReference<ContextThemeWrapper> ref = entry.themedContexts.get(theme);
+    ContextThemeWrapper themed = ref == null ? null : ref.get();
+    if (themed == null || themed.getBaseContext() != context) {
+      // Held weakly, the wrapper references the Context which references the key
+      themed = new ContextThemeWrapper(context, theme);
+      entry.themedContexts.put(theme, new WeakReference<ContextThemeWrapper>(themed));
+    }
+    return themed;
+  }
+
+  /**
+   * @param context Context that has the theme
+   * @param theme a resolved dialog theme
+   * @return the text appearance of dialog messages, resolved without inflating a view
+   */
+  static synchronized TextAppearance getMessageAppearance(Context context, int theme) {
+    Entry entry = getEntry(context);
+    TextAppearance appearance = entry.messageAppearances.get(theme);
+    if (appearance == null) {
+      final Context themed = getThemedContext(context, theme);
+      final TypedValue out = new TypedValue();
+      final int style = themed.getTheme()
+          .resolveAttribute(R.attr.textAppearanceMaterialDialogMessage, out, true)
+          ? out.resourceId : 0;
+      final TypedArray a = themed.obtainStyledAttributes(style, TEXT_APPEARANCE_ATTRS);
+      appearance = new TextAppearance(
+          a.getDimension(0, 15f * context.getResources().getDisplayMetrics().scaledDensity),
+          a.getInt(1, 0),
+          a.getInt(2, Typeface.NORMAL),
+          a.getColorStateList(3)
+      );
+      a.recycle();
+      entry.messageAppearances.put(theme, appearance);
+    }
+    return appearance;
+  }
+
+  /**
+   * Drop everything cached
+   */
+  static synchronized void clear() {
+    CACHE.clear();
+  }
+
+  private static Entry getEntry(Context context) {
+    final Resources.Theme key = context.getTheme();
+    final Configuration configuration = context.getResources().getConfiguration();
+    Entry entry = CACHE.get(key);
+    if (entry == null || !entry.configuration.equals(configuration)) {
+      entry = new Entry(configuration);
+      CACHE.put(key, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * The parts of a text appearance needed to lay text out like a TextView would
+   */
+  static final class TextAppearance {
+    final float textSize;
+    final int typeface;
+    final int textStyle;
+    final ColorStateList textColor;
+
+    TextAppearance(float textSize, int typeface, int textStyle, ColorStateList textColor) {
+      this.textSize = textSize;
+      this.typeface = typeface;
+      this.textStyle = textStyle;
+      this.textColor = textColor;
+    }
+
+    /**
+     * Create a paint for this appearance, following what TextView does with the same attributes
+     */
+    TextPaint newPaint(float density) {
+      final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+      paint.density = density;
+      paint.setTextSize(textSize);
+      if (textColor != null) {
+        paint.setColor(textColor.getDefaultColor());
+      }
+
+      Typeface base = null;
+      switch (typeface) {
+        case 1:
+          base = Typeface.SANS_SERIF;
+          break;
+        case 2:
+          base = Typeface.SERIF;
+          break;
+        case 3:
+          base = Typeface.MONOSPACE;
+          break;
+      }
+      if (textStyle > 0) {
+        final Typeface tf = base == null
+            ? Typeface.defaultFromStyle(textStyle) : Typeface.create(base, textStyle);
+        paint.setTypeface(tf);
+        // Fake what the font can't do, as TextView does
+        final int need = textStyle & ~(tf != null ? tf.getStyle() : 0);
+        paint.setFakeBoldText((need & Typeface.BOLD) != 0);
+        paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+      } else {
+        paint.setTypeface(base);
+      }
+      return paint;
+    }
+  }
+
+  private static final class Entry {
+    final Configuration configuration;
+    final SparseArray<WeakReference<ContextThemeWrapper>> themedContexts =
+        new SparseArray<WeakReference<ContextThemeWrapper>>();
+    final SparseArray<TextAppearance> messageAppearances = new SparseArray<TextAppearance>();
+    boolean defaultThemeResolved = false;
+    int defaultTheme = 0;
+
+    Entry(Configuration configuration) {
+      this.configuration = new Configuration(configuration);
+    }
+  }
+}
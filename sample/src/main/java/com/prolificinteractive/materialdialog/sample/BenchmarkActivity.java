@@ -0,0 +1,307 @@
+package com.prolificinteractive.materialdialog.sample;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.app.Dialog;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.DisplayMetrics;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.TextView;
+import butterknife.ButterKnife;
+import butterknife.InjectView;
+import butterknife.OnClick;
+import com.prolificinteractive.materialdialog.MaterialDialog;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times dialog creation and display, with AlertDialog as a baseline.
+ * Each case reports the median time and the number of allocations per operation.
+ * Cases run one at a time, each posted to the UI thread after the previous one is reported.
+ */
+public class BenchmarkActivity extends Activity {
+
+  private static final int[] LIST_SIZES = { 10, 1000 };
+  // Takes seconds per case, run on its own
+  private static final int LARGE_LIST_SIZE = 100000;
+  private static final int WARMUP_RUNS = 3;
+  private static final int RUNS = 15;
+
+  @InjectView(R.id.button_run) Button buttonRun;
+  @InjectView(R.id.button_run_large) Button buttonRunLarge;
+  @InjectView(R.id.text_results) TextView textResults;
+
+  // Cases left to run, one per message so the UI thread keeps handling input between them
+  private final List<Runnable> pending = new ArrayList<Runnable>();
+  private final Runnable runNext = new Runnable() {
+    @Override public void run() {
+      runNextCase();
+    }
+  };
+  private StringBuilder results;
+  private Result baseline;
+
+  @Override
+  protected void onCreate(Bundle savedInstanceState) {
+    super.onCreate(savedInstanceState);
+    setContentView(R.layout.activity_benchmark);
+    ButterKnife.inject(this);
+  }
+
+  @Override
+  protected void onDestroy() {
+    textResults.removeCallbacks(runNext);
+    super.onDestroy();
+  }
+
+  @OnClick(R.id.button_run) void onRunClicked() {
+    queue(new Case("inflate mdb__dialog") {
+      @Override void run() {
+        LayoutInflater.from(new MaterialDialog.Builder(BenchmarkActivity.this).getContext())
+            .inflate(com.prolificinteractive.materialdialog.R.layout.mdb__dialog, null);
+      }
+    }, true);
+
+    queue(new Case("new MaterialDialog") {
+      @Override void run() {
+        new MaterialDialog(BenchmarkActivity.this);
+      }
+    }, true);
+
+    queue(new Case("AlertDialog create") {
+      @Override void run() {
+        alertDialog().create();
+      }
+    }, true);
+    queue(new Case("MaterialDialog create") {
+      @Override void run() {
+        materialDialog().create();
+      }
+    }, false);
+
+    queue(new Case("AlertDialog show") {
+      @Override void run() {
+        showAndDismiss(alertDialog().create());
+      }
+    }, true);
+    queue(new Case("MaterialDialog show") {
+      @Override void run() {
+        showAndDismiss(materialDialog().create());
+      }
+    }, false);
+    queue(new Case("MaterialDialog overlay") {
+      @Override void run() {
+        showAndDismissOverlay(materialDialog().setOverlay(true).create());
+      }
+    }, false);
+
+    for (int size : LIST_SIZES) {
+      queueList(size);
+    }
+
+    // Panels a dialog doesn't use stay ViewStubs
+    pending.add(new Runnable() {
+      @Override public void run() {
+        results.append(String.format("\n%-24s %9d\n", "views, confirmation",
+            countViews(materialDialog().create())));
+        results.append(String.format("%-24s %9d\n", "views, list",
+            countViews(new MaterialDialog.Builder(BenchmarkActivity.this)
+                .setItems(createItems(10), (DialogInterface.OnClickListener) null)
+                .create())));
+      }
+    });
+
+    start();
+  }
+
+  @OnClick(R.id.button_run_large) void onRunLargeClicked() {
+    queueList(LARGE_LIST_SIZE);
+    start();
+  }
+
+  private void queueList(int size) {
+    final CharSequence[] items = createItems(size);
+    queue(new Case(String.format("AlertDialog list %,d", size)) {
+      @Override void run() {
+        showAndDismiss(new AlertDialog.Builder(BenchmarkActivity.this)
+            .setTitle("Benchmark")
+            .setItems(items, null)
+            .create());
+      }
+    }, true);
+    queue(new Case(String.format("MaterialDialog list %,d", size)) {
+      @Override void run() {
+        showAndDismiss(new MaterialDialog.Builder(BenchmarkActivity.this)
+            .setTitle("Benchmark")
+            .setItems(items, (DialogInterface.OnClickListener) null)
+            .create());
+      }
+    }, false);
+  }
+
+  /**
+   * @param isBaseline true to report the case on its own and compare the next ones with it
+   */
+  private void queue(final Case benchmark, final boolean isBaseline) {
+    pending.add(new Runnable() {
+      @Override public void run() {
+        Result result = measure(benchmark);
+        report(results, result, isBaseline ? null : baseline);
+        if (isBaseline) {
+          baseline = result;
+        }
+      }
+    });
+  }
+
+  private void start() {
+    buttonRun.setEnabled(false);
+    buttonRunLarge.setEnabled(false);
+    results = new StringBuilder();
+    results.append(String.format("%-24s %9s %9s\n", "case", "ms/op", "allocs/op"));
+    baseline = null;
+    textResults.setText(results);
+    textResults.post(runNext);
+  }
+
+  private void runNextCase() {
+    if (pending.isEmpty()) {
+      buttonRun.setEnabled(true);
+      buttonRunLarge.setEnabled(true);
+      return;
+    }
+    pending.remove(0).run();
+    textResults.setText(results);
+    textResults.post(runNext);
+  }
+
+  private AlertDialog.Builder alertDialog() {
+    return new AlertDialog.Builder(this)
+        .setTitle("Benchmark")
+        .setMessage("Message")
+        .setPositiveButton("Yes", null)
+        .setNegativeButton("No", null);
+  }
+
+  private MaterialDialog.Builder materialDialog() {
+    return new MaterialDialog.Builder(this)
+        .setTitle("Benchmark")
+        .setMessage("Message")
+        .setPositiveButton("Yes")
+        .setNegativeButton("No");
+  }
+
+  /**
+   * Show a dialog, run its first measure and layout right away, then dismiss it
+   */
+  private void showAndDismiss(Dialog dialog) {
+    dialog.show();
+    View decor = dialog.getWindow().getDecorView();
+    DisplayMetrics metrics = getResources().getDisplayMetrics();
+    decor.measure(
+        View.MeasureSpec.makeMeasureSpec(metrics.widthPixels, View.MeasureSpec.AT_MOST),
+        View.MeasureSpec.makeMeasureSpec(metrics.heightPixels, View.MeasureSpec.AT_MOST)
+    );
+    decor.layout(0, 0, decor.getMeasuredWidth(), decor.getMeasuredHeight());
+    dialog.dismiss();
+  }
+
+  /**
+   * Show an overlay dialog, run a measure and layout of the Activity with it, then dismiss it
+   */
+  private void showAndDismissOverlay(Dialog dialog) {
+    dialog.show();
+    View decor = getWindow().getDecorView();
+    decor.measure(
+        View.MeasureSpec.makeMeasureSpec(decor.getWidth(), View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(decor.getHeight(), View.MeasureSpec.EXACTLY)
+    );
+    decor.layout(0, 0, decor.getMeasuredWidth(), decor.getMeasuredHeight());
+    dialog.dismiss();
+  }
+
+  private static int countViews(Dialog dialog) {
+    return countViews(
+        dialog.findViewById(com.prolificinteractive.materialdialog.R.id.mdb__root));
+  }
+
+  private static int countViews(View view) {
+    int count = 1;
+    if (view instanceof ViewGroup) {
+      ViewGroup group = (ViewGroup) view;
+      for (int i = 0; i < group.getChildCount(); i++) {
+        count += countViews(group.getChildAt(i));
+      }
+    }
+    return count;
+  }
+
+  @SuppressWarnings("deprecation")
+  private static Result measure(Case benchmark) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      benchmark.run();
+    }
+
+    long[] times = new long[RUNS];
+    Debug.resetThreadAllocCount();
+    Debug.startAllocCounting();
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      benchmark.run();
+      times[i] = System.nanoTime() - start;
+    }
+    Debug.stopAllocCounting();
+    int allocations = Debug.getThreadAllocCount();
+
+    Arrays.sort(times);
+    return new Result(benchmark.name, times[RUNS / 2], allocations / RUNS);
+  }
+
+  /**
+   * @param baseline result to compare with, or null
+   */
+  private static void report(StringBuilder results, Result result, Result baseline) {
+    results.append(String.format("%-24s %9.2f %9d", result.name, result.nanos / 1e6,
+        result.allocations));
+    if (baseline != null) {
+      results.append(String.format(" (x%.2f)", (double) result.nanos / baseline.nanos));
+    }
+    results.append('\n');
+  }
+
+  private static CharSequence[] createItems(int size) {
+    CharSequence[] items = new CharSequence[size];
+    for (int i = 0; i < size; i++) {
+      items[i] = "Item " + i;
+    }
+    return items;
+  }
+
+  private abstract static class Case {
+    final String name;
+
+    Case(String name) {
+      this.name = name;
+    }
+
+    abstract void run();
+  }
+
+  private static class Result {
+    final String name;
+    final long nanos;
+    final int allocations;
+
+    Result(String name, long nanos, int allocations) {
+      this.name = name;
+      this.nanos = nanos;
+      this.allocations = allocations;
+    }
+  }
+}
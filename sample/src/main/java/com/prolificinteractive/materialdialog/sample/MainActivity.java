@@ -4,6 +4,7 @@ import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
+import android.content.Intent;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -15,6 +16,7 @@ import butterknife.ButterKnife;
 import butterknife.InjectView;
 import butterknife.OnClick;
 import com.prolificinteractive.materialdialog.MaterialDialog;
+import com.prolificinteractive.materialdialog.MaterialProgressDialog;
 
 public class MainActivity extends Activity {
 
@@ -140,6 +142,35 @@ public class MainActivity extends Activity {
     builder.show();
   }
 
+  @OnClick(R.id.button_progress) void onProgressClicked() {
+    final MaterialProgressDialog dialog = new MaterialProgressDialog(this);
+    dialog.setTitle(editTitle.getText().toString().trim().isEmpty()
+        ? "Downloading" : editTitle.getText().toString());
+    dialog.setMessage(editMessage.getText().toString().trim().isEmpty()
+        ? "Fetching the latest items" : editMessage.getText().toString());
+    dialog.setMax(200);
+    dialog.show();
+
+    // Reports far more often than frames are drawn, the dialog only applies the latest value
+    new Thread(new Runnable() {
+      @Override public void run() {
+        for (int i = 1; i <= 200 && dialog.isShowing(); i++) {
+          try {
+            Thread.sleep(10);
+          } catch (InterruptedException e) {
+            return;
+          }
+          dialog.setProgress(i);
+        }
+        runOnUiThread(new Runnable() {
+          @Override public void run() {
+            dialog.dismiss();
+          }
+        });
+      }
+    }).start();
+  }
+
   @Override
   public boolean onCreateOptionsMenu(Menu menu) {
     getMenuInflater().inflate(R.menu.menu_main, menu);
@@ -150,6 +181,11 @@ public class MainActivity extends Activity {
   public boolean onOptionsItemSelected(MenuItem item) {
     int id = item.getItemId();
 
+    if (id == R.id.action_benchmark) {
+      startActivity(new Intent(this, BenchmarkActivity.class));
+      return true;
+    }
+
     //noinspection SimplifiableIfStatement
     if (id == R.id.action_settings) {
       return true;